@@ -0,0 +1,159 @@
+package kittymaker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * FrameBudget
+ * Watches frame times and picks a KittyDetail that keeps them inside a budget. Frames are judged a window
+ * at a time: a window whose frames came further apart than the budget allows steps detail down a level.
+ * Detail comes back one level at a time after enough windows in a row that were on time with the kitty
+ * work well under the budget. The number of windows needed doubles whenever stepping up is immediately
+ * undone, so a scene that only just fits does not keep flickering between levels.
+ * Every change is recorded with its reason.
+ */
+public class FrameBudget {
+	// frames per decision
+	private static final int WINDOW = 30;
+	// frames this far over budget on average have been dropped
+	private static final double OVER_BUDGET = 1.2;
+	// share of the budget the kitty work must stay under to step back up
+	private static final double HEADROOM = 0.5;
+	// longer gaps are the application being idle or paused, not slow frames
+	private static final long STALL_NANOS = 250_000_000L;
+	private static final int MIN_WINDOWS_UP = 2;
+	private static final int MAX_WINDOWS_UP = 32;
+	private static final int MAX_REASONS = 32;
+	private final double budgetMillis;
+	private KittyDetail detail = KittyDetail.FULL;
+	private long lastFrame = -1;
+	private int frames;
+	private long intervalSum;
+	private long workSum;
+	private double averageFrameMillis;
+	private double averageWorkMillis;
+	private int goodWindows;
+	private int windowsUp = MIN_WINDOWS_UP;
+	private int windowsSinceUp = Integer.MAX_VALUE;
+	private long stepsDown;
+	private long stepsUp;
+	private ArrayDeque<String> reasons = new ArrayDeque<String>();
+
+	/**
+	 * FrameBudget
+	 * Class Constructor
+	 * @param budgetMillis double - longest a frame should take, e.g. 16.7 for 60 frames per second
+	 */
+	public FrameBudget(double budgetMillis) {
+		this.budgetMillis = budgetMillis;
+	}
+
+	/**
+	 * Record a frame
+	 * @param now long - frame time in nanoseconds
+	 * @param workNanos long - time spent on kitty work since the last frame
+	 * @return boolean - true if the detail level changed
+	 */
+	public boolean frame(long now, long workNanos) {
+		long interval = (lastFrame < 0) ? -1 : now - lastFrame;
+		lastFrame = now;
+		if (interval < 0 || interval > STALL_NANOS) {
+			return false;
+		}
+		intervalSum += interval;
+		workSum += workNanos;
+		if (++frames < WINDOW) {
+			return false;
+		}
+		averageFrameMillis = intervalSum / 1e6 / frames;
+		averageWorkMillis = workSum / 1e6 / frames;
+		frames = 0;
+		intervalSum = 0;
+		workSum = 0;
+		if (windowsSinceUp < Integer.MAX_VALUE) {
+			windowsSinceUp++;
+		}
+
+		if (averageFrameMillis > budgetMillis * OVER_BUDGET) {
+			goodWindows = 0;
+			if (detail == KittyDetail.SKIP_TICKS) {
+				return false;
+			}
+			if (windowsSinceUp <= 1) {
+				windowsUp = Math.min(MAX_WINDOWS_UP, windowsUp * 2);
+			}
+			change(KittyDetail.values()[detail.ordinal() + 1],
+					String.format(Locale.ROOT, "average frame %.1f ms is over the %.1f ms budget", averageFrameMillis, budgetMillis));
+			stepsDown++;
+			return true;
+		}
+		if (averageWorkMillis < budgetMillis * HEADROOM && detail != KittyDetail.FULL) {
+			if (++goodWindows < windowsUp) {
+				return false;
+			}
+			goodWindows = 0;
+			windowsSinceUp = 0;
+			change(KittyDetail.values()[detail.ordinal() - 1],
+					String.format(Locale.ROOT, "average frame %.1f ms with %.1f ms of work, headroom in the %.1f ms budget",
+							averageFrameMillis, averageWorkMillis, budgetMillis));
+			stepsUp++;
+			return true;
+		}
+		goodWindows = 0;
+		return false;
+	}
+
+	private void change(KittyDetail to, String reason) {
+		if (reasons.size() == MAX_REASONS) {
+			reasons.removeFirst();
+		}
+		reasons.addLast(detail + " -> " + to + ": " + reason);
+		detail = to;
+	}
+
+	public KittyDetail getDetail() {
+		return detail;
+	}
+
+	public double getBudgetMillis() {
+		return budgetMillis;
+	}
+
+	/**
+	 * @return double - average time between frames over the last full window
+	 */
+	public double getAverageFrameMillis() {
+		return averageFrameMillis;
+	}
+
+	/**
+	 * @return double - average kitty work per frame over the last full window
+	 */
+	public double getAverageWorkMillis() {
+		return averageWorkMillis;
+	}
+
+	public long getStepsDown() {
+		return stepsDown;
+	}
+
+	public long getStepsUp() {
+		return stepsUp;
+	}
+
+	/**
+	 * @return String - the last detail change and why it was made, null before the first
+	 */
+	public String getLastReason() {
+		return reasons.peekLast();
+	}
+
+	/**
+	 * @return List - the most recent detail changes and why they were made, oldest first
+	 */
+	public List<String> getReasons() {
+		return new ArrayList<String>(reasons);
+	}
+}
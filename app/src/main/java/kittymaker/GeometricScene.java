@@ -0,0 +1,2878 @@
+package kittymaker;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Insets;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.Node;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Button;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.control.RadioButton;
+import javafx.scene.control.TextField;
+import javafx.scene.control.ToggleGroup;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.input.GestureEvent;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Polygon;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+import javafx.scene.transform.Affine;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+/**
+ * Kitty Maker
+ * A simple program that allows you to create custom scale kitties on a scenic north-African inspired landscape.
+ * Created kitties will appear on the image, as well as the right side UI display, from there the user can set the
+ * visibility or delete the kitty. By default there are a maximum of 9 kitties allowed on the screen at one time,
+ * this can be raised with the --limit=N parameter. Side panel thumbnails are cached in a shared atlas
+ * limited to --thumbnail-budget=MB megabytes (default 4). Passing --renderer=canvas draws every kitty onto a single
+ * canvas layer instead of building a scene graph group per kitty, which is needed for very large populations.
+ * New kitties are placed clear of the others, --spacing=F scales the gap kept between them (0 lets them overlap,
+ * which large populations need). Kitties on the image can be clicked to select them, shift-clicked or rubber banded to select several,
+ * and dragged to move them. Kitties can also be spawned in bulk, the batch is generated off the application thread and
+ * added in one go. Ticking wander sets every kitty wandering about the ground.
+ * --world=N makes the world N times the size of the image each way, with the landscape stretched over it. Scroll or
+ * right drag to pan, ctrl+scroll or pinch to zoom. Zoomed out, canvas mode draws only the kitties in view, as plain
+ * ellipses and then single pixels. When frames run over --frame-budget=MS milliseconds (default 16.7, 0 turns it off)
+ * kitties lose their pupils, then ears, then paws, then animation runs at half rate, until there is time to spare again.
+ * Scenes can be saved to and loaded from binary scene files (--scene=FILE loads one at start up), loading streams the
+ * kitties in so the first of them show while the rest are still being read. Poster exports the whole world as a PNG
+ * --poster-width=N pixels wide (default 20000), rendered in tiles across every core and streamed to the file.
+ * The background elements are also toggle-able via the bottom pane of the UI, each combination is drawn once and cached.
+ * Everything random comes from --seed=N (default the clock), so a seed and a set of parameters always make the same
+ * scene. --record=FILE records the kitty creator and background events to a file on exit, --replay=FILE plays
+ * them back as fast as they can run, using the recorded seed unless another is given.
+ * Ticking stats (or --stats) shows frame rate, frame intervals, node count and heap over the image, the same figures are
+ * published over JMX as kittymaker:type=KittyMetrics, and the hot paths emit flight recorder events (KittyEvents).
+ * The scene itself is a KittySceneModel with no JavaFX in it, this class is a view of it: controls change the
+ * model, and the model's changes are applied to the view in one batch per pulse.
+ * Creating, deleting, showing and hiding kitties and background toggles can be undone and redone (Undo and Redo, or
+ * ctrl+Z and ctrl+shift+Z), the history kept is limited to --history-mb=N megabytes (default 64, 0 keeps none).
+ * The scene can also be driven from outside by a KittyFeed of text commands, tailed from --feed=FILE or sent to
+ * --feed-port=N on the loopback address. Up to --feed-budget=N commands (default 2000) are applied per pulse, as one
+ * batch, the rest wait in a queue of --feed-capacity=N (default 65536); --feed-overflow=drop throws commands away
+ * when it is full instead of holding up the producer.
+ * The look of every control comes from one stylesheet (kitty-maker.css) by style class, ticking dark (or --theme=dark)
+ * switches to the dark theme.
+ * --fast-start shows the scenery cached by an earlier fast start (in --startup-cache=DIR, default ~/.kitty-maker) as
+ * the first frame and only builds the scene, side panel and controls once that has been painted. --report-startup
+ * prints the time from the JVM starting to the first frame and to the first frame with working controls.
+ * @author Cordell Bonnieux
+ * 
+ */
+public class GeometricScene extends Application {
+	/*
+	 * LAYOUT ELEMENTS
+	 */
+	// width and height for graphical image
+	static final int HEIGHT = 800;
+	static final int WIDTH = 1200;
+	// UI Elements
+	private BorderPane root = new BorderPane();
+	private Ground foreground = new Ground();
+	private Background background = new Background(300, 300);
+	// background and ground as a cached bitmap, the shapes themselves are only drawn when it changes
+	private SceneryLayer sceneryLayer;
+	private Pane center = new Pane();
+	// the image shows a view of a world --world=N times its size each way
+	private static final double MAX_ZOOM = 4;
+	private double worldScale = 1;
+	private double worldWidth = WIDTH;
+	private double worldHeight = HEIGHT;
+	// world position of the image's top left corner and image pixels per world unit
+	private double viewX;
+	private double viewY;
+	private double zoom = 1;
+	private Affine kittyView = new Affine();
+	private ViewNavigator viewNavigator = new ViewNavigator();
+	// parameters given by a harness instead of the command line
+	private Map<String, String> presetParams;
+	private Stage stage;
+	// scene file to load at start up
+	private String sceneParam;
+	// width of exported posters in pixels
+	private int posterWidth = 20000;
+	// external command feed, its sources, queue size, overflow policy and commands applied per pulse
+	private KittyFeed feed;
+	private String feedFileParam;
+	private int feedPort = -1;
+	private int feedCapacity = 65536;
+	private int feedBudget = 2000;
+	private KittyFeed.Overflow feedOverflow = KittyFeed.Overflow.BLOCK;
+	// Kitty render mode and population limit
+	private boolean canvasMode = false;
+	private int kittyLimit = 9;
+	private KittyCanvas kittyLayer;
+	// scene graph kitties are kept in their own group below the selection layer
+	private Group kittyGroup = new Group();
+	// the scene itself, this application is a view of it
+	private KittySceneModel model;
+	// spatial index over kitty bounding ellipses for picking, dragging and culling, the model's
+	private KittyGrid kittyGrid;
+	private HashSet<Integer> selection = new HashSet<Integer>();
+	private SelectionLayer selectionLayer;
+	private KittyDragger kittyDragger = new KittyDragger();
+	// gap kept between new kitties
+	private double kittySpacing = 1;
+	// applies the model's changes on every pulse
+	private SceneUpdater sceneUpdater = new SceneUpdater();
+	// wandering kitties
+	private KittyAnimator kittyAnimator = new KittyAnimator();
+	// detail is stepped down when frames run over budget
+	private double frameBudgetMillis = 1000.0 / 60;
+	private FrameBudget frameBudget;
+	private FrameMonitor frameMonitor = new FrameMonitor();
+	private KittyDetail kittyDetail = KittyDetail.FULL;
+	// nanoseconds spent on kitty work since the last frame
+	private long frameWork;
+	/*
+	 * BACKGROUND CONTROL
+	 */
+	// top controls
+	private CheckBox pyramidCheckBox;
+	private CheckBox moonCheckBox;
+	private CheckBox nightCheckBox;
+	/*
+	 * KITTY ELEMENTS
+	 */
+	// bottom right controls
+	private RadioButton tall;
+	private RadioButton smol;
+	private RadioButton thicc;
+	private RadioButton hungry;
+	private Button createBtn = new Button("Create A Kitty");
+	private TextField spawnCount = new TextField("1000");
+	private Button spawnBtn = new Button("Spawn Kitties");
+	// a bulk spawn is being generated
+	private boolean spawning;
+	private CheckBox wanderCheckBox = new CheckBox("wander");
+	// scene files
+	private Button saveBtn = new Button("Save");
+	private Button loadBtn = new Button("Load");
+	private Button posterBtn = new Button("Poster");
+	private SceneFileHandler sceneFiles = new SceneFileHandler();
+	// history, megabytes it may take
+	private Button undoBtn = new Button("Undo");
+	private Button redoBtn = new Button("Redo");
+	private HistoryHandler historyHandler = new HistoryHandler();
+	private int historyMegabytes = 64;
+	private KittyChoices kittyType = new KittyChoices();
+	private KittyCreator spawnKitty = new KittyCreator();
+	// bottom right control groups
+	private ToggleGroup kittyWidth;
+	private ToggleGroup kittyHeight;
+	// Keep track of spawned kitties, the model's store is the source of truth
+	private KittyStore kittyStore;
+	// scene graph kitties by id, unused in canvas mode
+	private HashMap<Integer, Kitty> kittyNodes = new HashMap<Integer, Kitty>();
+	// nodes built on a worker for spawned kitties the model has not announced yet
+	private HashMap<Integer, Kitty> prebuiltNodes = new HashMap<Integer, Kitty>();
+	// shared immediate mode kitty drawing, used by the canvas layer and the side panel thumbnails
+	private KittyPainter kittyPainter = new KittyPainter();
+	// Current kitties side panel, rows are virtualized list cells bound to kitty ids
+	private KittyItems kittyItems = new KittyItems();
+	// kitties read from a scene file at a time
+	private static final int LOAD_CHUNK = 65536;
+	private int thumbnailBudget = 4;
+	private KittyThumbnailAtlas thumbnails;
+	private KittyControlRegistry<KittyCell> kittyControls = new KittyControlRegistry<KittyCell>();
+	private ListView<Integer> kittyHolder;
+	private Text numOfKitties;
+	// all randomness on the application thread, workers get streams split from it or seeded from it
+	private long seed;
+	private SplittableRandom random;
+	// event recording and replay
+	private KittyEventLog eventLog;
+	private long recordStart;
+	private String recordParam;
+	private KittyEventLog replayLog;
+	// every side panel row's controls share these ids, their events are recorded with the kitty id they were for
+	private static final String ROW_VISIBLE = "kittyVisible";
+	private static final String ROW_DELETE = "kittyDelete";
+	// row controls outside the scene that replayed row events are fired through, the rows themselves may not be shown
+	private CheckBox replayVisible = new CheckBox();
+	private Button replayDelete = new Button();
+	private KittyRowHandler replayRow = new KittyRowHandler(replayVisible, replayDelete);
+	private boolean replaying;
+	// completes once the last spawn is added
+	private CompletableFuture<?> pendingSpawn = CompletableFuture.completedFuture(null);
+	// performance figures, the overlay and the timer that samples them
+	private KittyMetrics metrics = new KittyMetrics();
+	private MetricsMonitor metricsMonitor = new MetricsMonitor();
+	private CheckBox statsCheckBox = new CheckBox("stats");
+	private Label statsOverlay = new Label();
+	private boolean statsParam;
+	// the look comes from one stylesheet, parsed once and shared by every node, a theme is a style class on the root
+	private static final String STYLESHEET = "kitty-maker.css";
+	private static final String DARK_THEME = "dark";
+	private CheckBox darkCheckBox = new CheckBox("dark");
+	private ThemeSwitcher themeSwitcher = new ThemeSwitcher();
+	private boolean darkParam;
+	// --fast-start shows the scenery cached by an earlier run and builds the rest once that has been painted
+	private boolean fastStart;
+	private Path startupCache = Paths.get(System.getProperty("user.home"), ".kitty-maker");
+	// when the first frame and the first frame with working controls were painted, -1 until then
+	private long firstFrameTime = -1;
+	private long interactiveTime = -1;
+	// --report-startup prints those times, --report-startup=exit quits after printing them
+	private String reportStartup;
+	
+	/**
+	 * Launch Application
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		Application.launch(args);
+	}
+	
+	/**
+	 * Used by Application.launch, parameters come from the command line
+	 */
+	public GeometricScene() {
+		this(null);
+	}
+	
+	/**
+	 * Used by harnesses that start the scene themselves (benchmarks), in place of command line parameters
+	 * @param params Map - named parameters, as --name=value on the command line
+	 */
+	GeometricScene(Map<String, String> params) {
+		presetParams = params;
+	}
+
+	/**
+	 * Start
+	 * JavaFX program logic
+	 * @param stage
+	 */
+	@Override
+	public void start(Stage stage) throws Exception {
+		this.stage = stage;
+		InitializeParameters();
+		if (fastStart) {
+			InitializeStartupImage();
+			InitializeStage(stage);
+		} else {
+			InitializeCenterImage();
+			InitializeMainPane();
+			InitializeStage(stage);
+			InitializeKittyCreatorControls();
+			InitializeServices();
+		}
+		new PaintWatcher(() -> {
+			firstFrameTime = System.currentTimeMillis();
+			if (fastStart) {
+				// the cached scenery is up, build everything else in its place
+				InitializeCenterImage();
+				InitializeMainPane();
+				InitializeKittyCreatorControls();
+				stage.sizeToScene();
+				cacheScenery();
+				InitializeServices();
+				new PaintWatcher(this::startupDone).start();
+			} else {
+				startupDone();
+			}
+		}).start();
+	}
+	
+	/**
+	 * Start what runs alongside the scene: adaptive detail, scene loading, recording, the feed, metrics and replay
+	 */
+	private void InitializeServices() {
+		if (frameBudgetMillis > 0) {
+			frameBudget = new FrameBudget(frameBudgetMillis);
+			frameMonitor.start();
+		}
+		if (sceneParam != null) {
+			loadSceneFromControls(Paths.get(sceneParam));
+		}
+		if (recordParam != null) {
+			startRecording();
+		}
+		if (feedFileParam != null || feedPort >= 0) {
+			startFeed();
+		}
+		metrics.register();
+		stage.getScene().addPostLayoutPulseListener(metricsMonitor);
+		metricsMonitor.start();
+		setStatsVisible(statsParam);
+		if (replayLog != null) {
+			long start = System.nanoTime();
+			replay(replayLog).thenAccept(events -> System.out.println("Replayed " + events + " events in "
+					+ (System.nanoTime() - start) / 1000000 + " ms, " + model.size() + " kitties"));
+		}
+	}
+	
+	/**
+	 * Stop
+	 * Unregisters the metrics and saves the recorded events when --record was given
+	 */
+	@Override
+	public void stop() {
+		if (feed != null) {
+			feed.close();
+		}
+		metricsMonitor.stop();
+		metrics.unregister();
+		KittyEventLog recorded = stopRecording();
+		if (recordParam != null && recorded != null) {
+			try {
+				recorded.write(Paths.get(recordParam));
+			} catch (IOException e) {
+				System.err.println("Could not save " + recordParam + ": " + e);
+			}
+		}
+	}
+	
+	/**
+	 * Note that start up is over, and report how long it took when asked to
+	 */
+	private void startupDone() {
+		interactiveTime = System.currentTimeMillis();
+		if (reportStartup != null) {
+			System.out.println(String.format(Locale.ROOT, "Startup: first frame %d ms, interactive %d ms",
+					getFirstFrameMillis(), getInteractiveMillis()));
+			if ("exit".equalsIgnoreCase(reportStartup)) {
+				Platform.exit();
+			}
+		}
+	}
+	
+	/**
+	 * Time from the JVM starting to the first frame being painted
+	 * @return long - milliseconds, -1 until it has been painted
+	 */
+	public long getFirstFrameMillis() {
+		return (firstFrameTime < 0) ? -1 : firstFrameTime - ManagementFactory.getRuntimeMXBean().getStartTime();
+	}
+	
+	/**
+	 * Time from the JVM starting to the first frame with every control built and handled being painted,
+	 * the same as the first frame unless --fast-start was given
+	 * @return long - milliseconds, -1 until it has been painted
+	 */
+	public long getInteractiveMillis() {
+		return (interactiveTime < 0) ? -1 : interactiveTime - ManagementFactory.getRuntimeMXBean().getStartTime();
+	}
+	
+	/**
+	 * Frame time metrics, the current detail level and the reasons it was changed
+	 * @return FrameBudget - null when adaptive detail is turned off
+	 */
+	public FrameBudget getFrameBudget() {
+		return frameBudget;
+	}
+	
+	/**
+	 * Read the optional command line parameters
+	 * --renderer=canvas to batch draw all kitties onto one canvas layer
+	 * --limit=N to change the maximum number of kitties
+	 * --world=N to make the world N times the size of the image each way
+	 * --frame-budget=MS to change the frame time kitty detail is stepped down to keep within, 0 to keep full detail
+	 * --scene=FILE to load a saved scene
+	 * --poster-width=N to change the width of exported posters in pixels
+	 * --history-mb=N to change how many megabytes of undo history are kept, 0 for none
+	 * --feed=FILE to tail a file of commands
+	 * --feed-port=N to accept commands on a local port
+	 * --feed-capacity=N to change how many commands can wait to be applied
+	 * --feed-budget=N to change how many commands are applied per pulse
+	 * --feed-overflow=drop to throw commands away when the feed is full, instead of waiting
+	 * --seed=N to make the same scene every time
+	 * --record=FILE to save the kitty creator and background events on exit
+	 * --replay=FILE to replay saved events
+	 * --stats to show the performance overlay
+	 * --theme=dark to start with the dark theme
+	 * --fast-start to show the cached scenery first and build the controls after it is painted
+	 * --startup-cache=DIR to change where the scenery is cached for fast starts
+	 * --report-startup to print the time to the first frame and to interactive, =exit to quit after printing them
+	 */
+	private void InitializeParameters() {
+		Map<String, String> params = (presetParams != null) ? presetParams : getParameters().getNamed();
+		canvasMode = "canvas".equalsIgnoreCase(params.get("renderer"));
+		kittyLimit = Math.max(1, intParameter(params, "limit", kittyLimit));
+		thumbnailBudget = Math.max(1, intParameter(params, "thumbnail-budget", thumbnailBudget));
+		kittySpacing = Math.max(0, doubleParameter(params, "spacing", kittySpacing));
+		frameBudgetMillis = Math.max(0, doubleParameter(params, "frame-budget", frameBudgetMillis));
+		sceneParam = params.get("scene");
+		posterWidth = Math.max(1, intParameter(params, "poster-width", posterWidth));
+		historyMegabytes = Math.max(0, intParameter(params, "history-mb", historyMegabytes));
+		feedFileParam = params.get("feed");
+		feedPort = intParameter(params, "feed-port", feedPort);
+		feedCapacity = Math.max(1, intParameter(params, "feed-capacity", feedCapacity));
+		feedBudget = Math.max(1, intParameter(params, "feed-budget", feedBudget));
+		if ("drop".equalsIgnoreCase(params.get("feed-overflow"))) {
+			feedOverflow = KittyFeed.Overflow.DROP;
+		}
+		recordParam = params.get("record");
+		statsParam = params.containsKey("stats") ? !"false".equalsIgnoreCase(params.get("stats"))
+				: presetParams == null && getParameters().getUnnamed().contains("--stats");
+		darkParam = DARK_THEME.equalsIgnoreCase(params.get("theme"));
+		fastStart = params.containsKey("fast-start") ? !"false".equalsIgnoreCase(params.get("fast-start"))
+				: presetParams == null && getParameters().getUnnamed().contains("--fast-start");
+		if (params.containsKey("startup-cache")) {
+			startupCache = Paths.get(params.get("startup-cache"));
+		}
+		reportStartup = params.containsKey("report-startup") ? params.get("report-startup")
+				: (presetParams == null && getParameters().getUnnamed().contains("--report-startup")) ? "" : null;
+		seed = System.nanoTime();
+		if (params.containsKey("replay")) {
+			try {
+				replayLog = KittyEventLog.read(Paths.get(params.get("replay")));
+				seed = replayLog.getSeed();
+			} catch (IOException e) {
+				System.err.println("Could not load " + params.get("replay") + ": " + e);
+			}
+		}
+		seed = longParameter(params, "seed", seed);
+		random = new SplittableRandom(seed);
+		worldScale = Math.max(1, doubleParameter(params, "world", worldScale));
+		worldWidth = WIDTH * worldScale;
+		worldHeight = HEIGHT * worldScale;
+	}
+	
+	/**
+	 * Read a whole number parameter
+	 * @param params Map - named parameters
+	 * @param name String - parameter name
+	 * @param fallback int - value used when missing or invalid
+	 * @return int - the parameter value
+	 */
+	private int intParameter(Map<String, String> params, String name, int fallback) {
+		if (params.containsKey(name)) {
+			try {
+				return Integer.parseInt(params.get(name));
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid --" + name + " value, using " + fallback);
+			}
+		}
+		return fallback;
+	}
+	
+	/**
+	 * Read a long whole number parameter
+	 * @param params Map - named parameters
+	 * @param name String - parameter name
+	 * @param fallback long - value used when missing or invalid
+	 * @return long - the parameter value
+	 */
+	private long longParameter(Map<String, String> params, String name, long fallback) {
+		if (params.containsKey(name)) {
+			try {
+				return Long.parseLong(params.get(name));
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid --" + name + " value, using " + fallback);
+			}
+		}
+		return fallback;
+	}
+	
+	/**
+	 * Read a decimal parameter
+	 * @param params Map - named parameters
+	 * @param name String - parameter name
+	 * @param fallback double - value used when missing or invalid
+	 * @return double - the parameter value
+	 */
+	private double doubleParameter(Map<String, String> params, String name, double fallback) {
+		if (params.containsKey(name)) {
+			try {
+				return Double.parseDouble(params.get(name));
+			} catch (NumberFormatException e) {
+				System.err.println("Invalid --" + name + " value, using " + fallback);
+			}
+		}
+		return fallback;
+	}
+	
+	/**
+	 * Show the scenery cached by an earlier fast start where the image goes, until the image is built
+	 * Without a cached copy the background and ground shapes are shown instead.
+	 */
+	private void InitializeStartupImage() {
+		Path cached = sceneryCacheFile();
+		Pane placeholder = new Pane();
+		placeholder.setPrefHeight(HEIGHT);
+		placeholder.setPrefWidth(WIDTH);
+		placeholder.setPadding(new Insets(10));
+		if (Files.isReadable(cached)) {
+			placeholder.getChildren().add(new ImageView(new Image(cached.toUri().toString())));
+		} else {
+			placeholder.getChildren().addAll(background, foreground);
+			placeholder.setClip(new Rectangle(0, 0, WIDTH, HEIGHT));
+		}
+		root.setPadding(new Insets(10));
+		root.setCenter(placeholder);
+	}
+	
+	/**
+	 * Scenery cached for fast starts, one file per background
+	 * @return Path - cache file for the current background
+	 */
+	private Path sceneryCacheFile() {
+		return startupCache.resolve("scenery-" + WIDTH + "x" + HEIGHT + "-" + sceneryVariant() + ".png");
+	}
+	
+	/**
+	 * Save the scenery just rasterised for the next fast start, unless it is cached already
+	 * The pixels are read here and the PNG is written on a thread of its own, which is not a daemon so that
+	 * quitting straight away still leaves a whole file. It is written under another name and then renamed.
+	 */
+	private void cacheScenery() {
+		Path file = sceneryCacheFile();
+		if (Files.exists(file)) {
+			return;
+		}
+		int[] pixels = new int[WIDTH * HEIGHT];
+		sceneryLayer.getImage().getPixelReader().getPixels(0, 0, WIDTH, HEIGHT, PixelFormat.getIntArgbInstance(), pixels, 0, WIDTH);
+		Thread writer = new Thread(() -> {
+			try {
+				Files.createDirectories(startupCache);
+				Path partial = Files.createTempFile(startupCache, "scenery", ".part");
+				try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 16)) {
+					KittyPngWriter png = new KittyPngWriter(out, WIDTH, HEIGHT);
+					png.write(png.compress(pixels, HEIGHT, true));
+					png.close();
+				}
+				Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (IOException e) {
+				System.err.println("Could not cache the scenery in " + file + ": " + e);
+			}
+		}, "kitty-scenery-cache");
+		writer.start();
+	}
+	
+	/**
+	 * Initialize the main border pane
+	 */
+	private void InitializeMainPane() {
+		root.setPadding(new Insets(10));
+		
+		root.setRight(get_currentKitties());
+		
+		HBox bgControls = get_bgControls();
+		root.setBottom(new HBox(bgControls, get_kittyControls()));
+		HBox.setMargin(bgControls, new Insets(15, 0, 0, 0));
+	}
+	
+	/**
+	 * Put the main pane in the window, with the stylesheet and theme, and show it
+	 * @param stage Stage
+	 */
+	private void InitializeStage(Stage stage) {
+		Scene scene = new Scene(root);
+		scene.getStylesheets().add(GeometricScene.class.getResource(STYLESHEET).toExternalForm());
+		setDarkTheme(darkParam);
+		stage.setTitle("Kitty Maker");
+		stage.setResizable(false);
+		stage.setScene(scene);
+		stage.show();
+	}
+	
+	/**
+	 * Initialize Event Listeners for Kitty Creator.
+	 */
+	private void InitializeKittyCreatorControls() {
+		EventRecorder choices = new EventRecorder(kittyType);
+		EventRecorder creator = new EventRecorder(spawnKitty);
+		tall.setOnAction(choices);
+		smol.setOnAction(choices);
+		thicc.setOnAction(choices);
+		hungry.setOnAction(choices);
+		createBtn.setOnAction(creator);
+		spawnBtn.setOnAction(creator);
+		saveBtn.setOnAction(sceneFiles);
+		loadBtn.setOnAction(sceneFiles);
+		posterBtn.setOnAction(sceneFiles);
+		EventRecorder rows = new EventRecorder(replayRow);
+		replayVisible.setOnAction(rows);
+		replayDelete.setOnAction(rows);
+		undoBtn.setOnAction(historyHandler);
+		redoBtn.setOnAction(historyHandler);
+		wanderCheckBox.setOnAction(kittyAnimator);
+		statsCheckBox.setOnAction(metricsMonitor);
+		darkCheckBox.setOnAction(themeSwitcher);
+		stage.getScene().getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), undoBtn::fire);
+		stage.getScene().getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN), redoBtn::fire);
+		refreshCreateButton();
+		refreshHistoryButtons();
+	}
+	
+	/**
+	 * Disable the create button when the limit is reached or there is no room for the chosen kitty,
+	 * and the spawn button while a spawn is running or no kitty would fit
+	 */
+	private void refreshCreateButton() {
+		createBtn.setDisable(!model.hasRoom(model.getChosenScaleX(), model.getChosenScaleY()));
+		spawnBtn.setDisable(spawning || !model.hasRoom(1, 1));
+	}
+	
+	/**
+	 * Disable undo and redo when there is nothing to undo or redo
+	 */
+	private void refreshHistoryButtons() {
+		undoBtn.setDisable(!model.getHistory().canUndo());
+		redoBtn.setDisable(!model.getHistory().canRedo());
+	}
+	
+	/**
+	 * Paint the Image to the center pane region.
+	 */
+	private void InitializeCenterImage() {
+		center.setPrefHeight(HEIGHT);
+		center.setPrefWidth(WIDTH);
+		center.setPadding(new Insets(10));
+		model = new KittySceneModel(worldWidth, worldHeight, foreground.getHeight() * worldScale, this::groundSurfaceY,
+				kittySpacing, kittyLimit, random.nextLong());
+		kittyStore = model.getStore();
+		kittyGrid = model.getGrid();
+		model.getHistory().setBudget((long) historyMegabytes << 20);
+		model.addListener(sceneUpdater);
+		// started before the kitty canvas so changes are applied before it paints in the same pulse
+		sceneUpdater.start();
+		sceneryLayer = new SceneryLayer();
+		if (canvasMode) {
+			// the kitty canvas paints the scenery under the kitties itself
+			kittyLayer = new KittyCanvas(WIDTH, HEIGHT);
+			center.getChildren().add(kittyLayer);
+		} else {
+			center.getChildren().addAll(sceneryLayer, kittyGroup);
+		}
+		selectionLayer = new SelectionLayer(WIDTH, HEIGHT);
+		center.getChildren().add(selectionLayer);
+		statsOverlay.setId("statsOverlay");
+		statsOverlay.getStyleClass().add("stats-overlay");
+		statsOverlay.relocate(10, 10);
+		statsOverlay.setMouseTransparent(true);
+		statsOverlay.setVisible(false);
+		center.getChildren().add(statsOverlay);
+		
+		// kitties are picked through the grid, so only the pane itself needs to receive mouse events
+		sceneryLayer.setMouseTransparent(true);
+		kittyGroup.setMouseTransparent(true);
+		kittyGroup.getTransforms().add(kittyView);
+		center.setOnMousePressed(kittyDragger);
+		center.setOnMouseDragged(kittyDragger);
+		center.setOnMouseReleased(kittyDragger);
+		center.setOnScroll(viewNavigator);
+		center.setOnZoom(viewNavigator);
+		
+		setView(0, 0, 1);
+		
+		Rectangle clip = new Rectangle(0,0,WIDTH, HEIGHT);
+		center.setClip(clip);		
+		root.setCenter(center);
+	}
+	
+	/**
+	 * Which of the eight backgrounds is showing
+	 * @return int - night, moon and pyramid bits
+	 */
+	private int sceneryVariant() {
+		return (background.isNight() ? 4 : 0) | (background.moon.isVisible() ? 2 : 0) | (background.pyramidLeft.isVisible() ? 1 : 0);
+	}
+	
+	/**
+	 * Top of the ground in the world, the landscape is stretched over the whole world
+	 * @param x double - world X
+	 * @return double - world Y of the ground's top edge
+	 */
+	private double groundSurfaceY(double x) {
+		return foreground.getSurfaceY(x / worldScale) * worldScale;
+	}
+	
+	/**
+	 * Move the view, it is kept inside the world and zoomed no further out than the whole world
+	 * @param x double - world X at the left edge of the image
+	 * @param y double - world Y at the top edge of the image
+	 * @param scale double - image pixels per world unit
+	 */
+	public void setView(double x, double y, double scale) {
+		zoom = Math.max(1 / worldScale, Math.min(MAX_ZOOM, scale));
+		viewX = Math.max(0, Math.min(worldWidth - WIDTH / zoom, x));
+		viewY = Math.max(0, Math.min(worldHeight - HEIGHT / zoom, y));
+		if (canvasMode) {
+			kittyLayer.markDirty();
+		} else {
+			kittyView.setToTransform(zoom, 0, -viewX * zoom, 0, zoom, -viewY * zoom);
+			sceneryLayer.showView();
+		}
+		selectionLayer.paint();
+	}
+	
+	/**
+	 * Zoom keeping the world point under an image point where it is
+	 * @param x double - image X
+	 * @param y double - image Y
+	 * @param factor double - zoom multiplier
+	 */
+	private void zoomAt(double x, double y, double factor) {
+		double scale = Math.max(1 / worldScale, Math.min(MAX_ZOOM, zoom * factor));
+		setView(toWorldX(x) - x / scale, toWorldY(y) - y / scale, scale);
+	}
+	
+	private double toWorldX(double x) {
+		return viewX + x / zoom;
+	}
+	
+	private double toWorldY(double y) {
+		return viewY + y / zoom;
+	}
+	
+	/**
+	 * Spawn kitties in bulk
+	 * Colors, positions and geometry are generated on worker threads, as are the nodes when the scene graph is
+	 * used, then the whole batch is added to the model at once and shows on the next pulse. Must be called on
+	 * the application thread, which seeds the batch from the model's random stream. Only as many kitties as the
+	 * limit leaves room for are generated and built, and of those the ones no room is found for when spacing is on
+	 * are dropped.
+	 * @param count int - number of kitties to spawn
+	 * @return CompletableFuture - completes with the number of kitties added, on the application thread unless
+	 * in canvas mode
+	 */
+	public CompletableFuture<Integer> spawnKitties(int count) {
+		CompletableFuture<KittyBatch> generated = model.generate(count);
+		if (canvasMode) {
+			// nothing to build, the worker adds the batch itself
+			return generated.thenApply(batch -> countAdded(model.addBatch(batch, false)));
+		}
+		return generated.thenCompose(batch -> {
+			Kitty[] nodes = buildNodes(batch);
+			return CompletableFuture.supplyAsync(() -> {
+				int[] ids = model.addBatch(batch, false);
+				for (int i = 0; i < ids.length; i++) {
+					if (ids[i] >= 0) {
+						prebuiltNodes.put(ids[i], nodes[i]);
+					}
+				}
+				return countAdded(ids);
+			}, Platform::runLater);
+		});
+	}
+	
+	/**
+	 * Build a node for every kitty of a batch, in parallel
+	 * Nodes may be built on any thread until they join a live scene.
+	 * @param batch KittyBatch - generated kitties
+	 * @return Kitty[] - a node per kitty of the batch
+	 */
+	private Kitty[] buildNodes(KittyBatch batch) {
+		Kitty[] nodes = new Kitty[batch.size()];
+		IntStream.range(0, batch.size()).parallel().forEach(i -> nodes[i] = new Kitty(Kitty.toColor(batch.getMainColor(i)),
+				Kitty.toColor(batch.getEyeColor(i)), batch.getX(i), batch.getY(i), batch.getScaleX(i), batch.getScaleY(i)));
+		return nodes;
+	}
+	
+	/**
+	 * @param ids int[] - ids given to a batch by the model
+	 * @return int - how many of the batch were added
+	 */
+	private static int countAdded(int[] ids) {
+		int count = 0;
+		for (int id : ids) {
+			if (id >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Save the kitties and background to a scene file
+	 * @param path Path - file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void saveScene(Path path) throws IOException {
+		synchronized (model) {
+			KittySceneFile.write(path, kittyStore, model.getBackgroundFlags());
+		}
+	}
+	
+	/**
+	 * Replace the scene with one from a scene file
+	 * The file is read on a loader thread that adds it to the model a chunk at a time, so the first kitties
+	 * are drawn on the next pulse while the rest are still loading. Reading stops once the limit is reached, the
+	 * rest of the file is never read.
+	 * @param path Path - file to read
+	 * @return CompletableFuture - completes on the loader thread with the number of kitties loaded
+	 */
+	public CompletableFuture<Integer> loadScene(Path path) {
+		CompletableFuture<Integer> loaded = new CompletableFuture<Integer>();
+		KittySceneFile.Reader reader;
+		try {
+			reader = KittySceneFile.open(path);
+		} catch (IOException e) {
+			loaded.completeExceptionally(e);
+			return loaded;
+		}
+		model.clear();
+		model.setBackgroundFlags(reader.getBackgroundFlags());
+		Thread loader = new Thread(() -> {
+			try (KittySceneFile.Reader r = reader) {
+				int total = 0;
+				KittyBatch batch;
+				int room;
+				while ((room = model.getLimit() - model.size()) > 0 && (batch = r.next(Math.min(LOAD_CHUNK, room))) != null) {
+					total += countAdded(model.addBatch(batch, true));
+				}
+				loaded.complete(total);
+			} catch (IOException | RuntimeException e) {
+				loaded.completeExceptionally(e);
+			}
+		}, "kitty-scene-loader");
+		loader.setDaemon(true);
+		loader.start();
+		return loaded;
+	}
+	
+	/**
+	 * Load a scene file with the load and spawn buttons disabled until it is in, as for the load button and --scene
+	 * Must be called on the application thread.
+	 * @param path Path - file to read
+	 */
+	private void loadSceneFromControls(Path path) {
+		spawning = true;
+		loadBtn.setDisable(true);
+		refreshCreateButton();
+		loadScene(path).whenCompleteAsync((loaded, error) -> {
+			if (error != null) {
+				System.err.println("Could not load " + path + ": " + error);
+			}
+			spawning = false;
+			loadBtn.setDisable(false);
+			refreshCreateButton();
+		}, Platform::runLater);
+	}
+	
+	/**
+	 * Export the whole world as a PNG poster, rendered in parallel off the application thread
+	 * The kitties and scenery are copied first, changes made while the poster renders do not show on it.
+	 * @param path Path - file to write
+	 * @param width int - poster width in pixels, the height keeps the world's proportions
+	 * @return CompletableFuture - completes on the poster thread with the size of the file in bytes
+	 */
+	public CompletableFuture<Long> exportPoster(Path path, int width) {
+		KittyPoster poster = new KittyPoster(model, worldScale);
+		addPosterScenery(poster, background);
+		addPosterScenery(poster, foreground);
+		int height = (int) Math.max(1, Math.round(width * worldHeight / worldWidth));
+		return poster.export(path, width, height);
+	}
+	
+	/**
+	 * Copy the visible shapes of a scenery group onto a poster, in paint order
+	 * @param poster KittyPoster - poster being made
+	 * @param group Group - background or ground
+	 */
+	static void addPosterScenery(KittyPoster poster, Group group) {
+		for (Node node : group.getChildren()) {
+			if (!node.isVisible()) {
+				continue;
+			}
+			if (node instanceof Rectangle) {
+				Rectangle r = (Rectangle) node;
+				poster.addSceneryRect(r.getX(), r.getY(), r.getWidth(), r.getHeight(), toARGB(r.getFill()));
+			} else if (node instanceof Ellipse) {
+				Ellipse oval = (Ellipse) node;
+				poster.addSceneryEllipse(oval.getCenterX(), oval.getCenterY(), oval.getRadiusX(), oval.getRadiusY(), toARGB(oval.getFill()));
+			} else if (node instanceof Polygon) {
+				Polygon polygon = (Polygon) node;
+				double[] points = polygon.getPoints().stream().mapToDouble(Double::doubleValue).toArray();
+				poster.addSceneryPolygon(points, toARGB(polygon.getFill()), toARGB(polygon.getStroke()), polygon.getStrokeWidth());
+			}
+		}
+	}
+	
+	/**
+	 * @param paint Paint - a shape's fill or stroke
+	 * @return int - the color as opaque ARGB, 0 if it is not a plain color
+	 */
+	private static int toARGB(Paint paint) {
+		if (!(paint instanceof Color)) {
+			return 0;
+		}
+		Color c = (Color) paint;
+		return KittyStore.argb((int) Math.round(c.getRed() * 255), (int) Math.round(c.getGreen() * 255), (int) Math.round(c.getBlue() * 255));
+	}
+	
+	/**
+	 * The scene this application is a view of
+	 * @return KittySceneModel
+	 */
+	public KittySceneModel getModel() {
+		return model;
+	}
+	
+	/**
+	 * The external command feed
+	 * @return KittyFeed - null unless --feed or --feed-port was given
+	 */
+	public KittyFeed getFeed() {
+		return feed;
+	}
+	
+	/**
+	 * Start reading commands from --feed and --feed-port, a source that cannot be opened is reported and left out
+	 */
+	private void startFeed() {
+		feed = new KittyFeed(feedCapacity, feedOverflow);
+		if (feedFileParam != null) {
+			try {
+				feed.tail(Paths.get(feedFileParam));
+			} catch (IOException e) {
+				System.err.println("Could not read " + feedFileParam + ": " + e);
+			}
+		}
+		if (feedPort >= 0) {
+			try {
+				System.out.println("Feed listening on port " + feed.listen(feedPort));
+			} catch (IOException e) {
+				System.err.println("Could not listen on port " + feedPort + ": " + e);
+			}
+		}
+		metrics.watch(feed);
+	}
+	
+	/**
+	 * Apply the model's pending changes to the view now instead of on the next pulse
+	 * Must be called on the application thread.
+	 */
+	public void applyChanges() {
+		model.flush();
+	}
+	
+	/**
+	 * Show the model's background on the scenery and its controls
+	 */
+	private void showBackground() {
+		boolean night = model.isNight();
+		boolean moon = model.isMoonVisible();
+		boolean pyramid = model.isPyramidVisible();
+		background.setNight(night);
+		background.setMoonVisible(moon);
+		background.setPyramidVisible(pyramid);
+		nightCheckBox.setSelected(night);
+		moonCheckBox.setSelected(moon);
+		pyramidCheckBox.setSelected(pyramid);
+		moonCheckBox.setText(night ? "Moon" : "Sun");
+		sceneryLayer.refresh();
+		if (canvasMode) {
+			kittyLayer.markDirty();
+		}
+	}
+	
+	/**
+	 * Start recording the kitty creator and background events, dropping any earlier recording
+	 */
+	public void startRecording() {
+		eventLog = new KittyEventLog(seed);
+		recordStart = System.nanoTime();
+	}
+	
+	/**
+	 * Stop recording
+	 * @return KittyEventLog - the events recorded, null if not recording
+	 */
+	public KittyEventLog stopRecording() {
+		KittyEventLog log = eventLog;
+		eventLog = null;
+		return log;
+	}
+	
+	/**
+	 * Replay recorded events as fast as they run, ignoring the recorded times
+	 * Events are fired through the controls they came from, so they go through the same handlers. A side panel
+	 * row's events are fired through row controls of its own bound to the recorded kitty, as that kitty's row may
+	 * not be shown. A spawn is waited for before the next event, as the spawn button would have been disabled
+	 * until it finished.
+	 * Must be called on the application thread, replayed events are not recorded.
+	 * @param log KittyEventLog - events to replay
+	 * @return CompletableFuture - completes on the application thread with the number of events replayed
+	 */
+	public CompletableFuture<Integer> replay(KittyEventLog log) {
+		CompletableFuture<Integer> done = new CompletableFuture<Integer>();
+		replayFrom(log, 0, done);
+		return done;
+	}
+	
+	private void replayFrom(KittyEventLog log, int from, CompletableFuture<Integer> done) {
+		replaying = true;
+		int i = from;
+		while (i < log.size()) {
+			String source = log.getSource(i);
+			if (source.equals(ROW_VISIBLE) || source.equals(ROW_DELETE)) {
+				String[] words = log.getText(i).split(" ");
+				int id;
+				try {
+					id = Integer.parseInt(words[0]);
+				} catch (NumberFormatException e) {
+					id = -1;
+				}
+				if (id < 0 || (source.equals(ROW_VISIBLE) && words.length != 2)) {
+					replaying = false;
+					done.completeExceptionally(new IllegalArgumentException("Bad " + source + " event: " + log.getText(i)));
+					return;
+				}
+				replayRow.bind(id);
+				if (source.equals(ROW_VISIBLE)) {
+					// firing toggles it to the recorded state
+					replayVisible.setSelected(!Boolean.parseBoolean(words[1]));
+					replayVisible.fire();
+				} else {
+					replayDelete.fire();
+				}
+				i++;
+				continue;
+			}
+			Node control = root.lookup("#" + source);
+			if (!(control instanceof ButtonBase)) {
+				replaying = false;
+				done.completeExceptionally(new IllegalArgumentException("No control with id " + source));
+				return;
+			}
+			if (control == spawnBtn) {
+				spawnCount.setText(log.getText(i));
+			}
+			((ButtonBase) control).fire();
+			i++;
+			if (spawning) {
+				int next = i;
+				pendingSpawn.whenCompleteAsync((added, error) -> replayFrom(log, next, done), Platform::runLater);
+				return;
+			}
+		}
+		replaying = false;
+		done.complete(log.size());
+	}
+	
+	/**
+	 * Show or hide the performance overlay
+	 * @param x boolean - true to show it
+	 */
+	public void setStatsVisible(boolean x) {
+		statsCheckBox.setSelected(x);
+		statsOverlay.setVisible(x);
+		if (x) {
+			metricsMonitor.showStats();
+		}
+	}
+	
+	/**
+	 * Switch between the light and dark themes
+	 * Only the root's style class changes, the stylesheet's colors are looked up from it, so the whole window is
+	 * restyled in the next CSS pass.
+	 * @param x boolean - true for the dark theme
+	 */
+	public void setDarkTheme(boolean x) {
+		darkCheckBox.setSelected(x);
+		if (!x) {
+			root.getStyleClass().remove(DARK_THEME);
+		} else if (!root.getStyleClass().contains(DARK_THEME)) {
+			root.getStyleClass().add(DARK_THEME);
+		}
+	}
+	
+	/**
+	 * @return boolean - true when the dark theme is on
+	 */
+	public boolean isDarkTheme() {
+		return root.getStyleClass().contains(DARK_THEME);
+	}
+	
+	/**
+	 * Performance figures, also registered over JMX
+	 * @return KittyMetrics
+	 */
+	public KittyMetrics getMetrics() {
+		return metrics;
+	}
+	
+	/**
+	 * Start or stop every kitty wandering about the ground
+	 * @param x boolean - true to wander
+	 */
+	public void setWandering(boolean x) {
+		wanderCheckBox.setSelected(x);
+		if (x) {
+			kittyAnimator.start();
+		} else {
+			kittyAnimator.stop();
+		}
+	}
+	
+	/**
+	 * Change how much of every kitty is drawn
+	 * @param detail KittyDetail - detail level
+	 */
+	private void setKittyDetail(KittyDetail detail) {
+		boolean partsChanged = detail.showsPupils() != kittyDetail.showsPupils() || detail.showsEars() != kittyDetail.showsEars()
+				|| detail.showsPaws() != kittyDetail.showsPaws();
+		kittyDetail = detail;
+		if (!partsChanged) {
+			return;
+		}
+		if (canvasMode) {
+			kittyLayer.markDirty();
+		} else {
+			for (Kitty cat : kittyNodes.values()) {
+				cat.setDetail(detail);
+			}
+		}
+	}
+	
+	/**
+	 * Find the top most visible kitty under a point
+	 * @param x double - point X
+	 * @param y double - point Y
+	 * @return int - kitty id, -1 if there is none
+	 */
+	private int pickKitty(double x, double y) {
+		// {id, store index} of the best hit so far, later kitties are drawn on top
+		int[] top = {-1, -1};
+		kittyGrid.hits(x, y, id -> {
+			int i = kittyStore.indexOf(id);
+			if (kittyStore.isVisible(i) && i > top[1]) {
+				top[0] = id;
+				top[1] = i;
+			}
+		});
+		return top[0];
+	}
+	
+	/**
+	 * Current Kitties
+	 * Builds the GUI list of all current kitties created. The list is virtualized, only rows on screen
+	 * are materialised, and kitties being added or removed are applied to it as single item changes.
+	 * @return VBox - UI element containing the current kitties
+	 */
+	private VBox get_currentKitties() {
+		KittyEvents.PanelRebuild event = new KittyEvents.PanelRebuild();
+		event.begin();
+		thumbnails = new KittyThumbnailAtlas(thumbnailBudget * 1024L * 1024L);
+		Text heading = new Text("Current Kitties");
+		heading.getStyleClass().add("kitty-heading");
+		
+		kittyHolder = new ListView<Integer>(kittyItems);
+		kittyHolder.setId("currentKitties");
+		kittyHolder.setCellFactory(list -> new KittyCell());
+		kittyHolder.setFixedCellSize(KittyCell.HEIGHT);
+		kittyHolder.setFocusTraversable(false);
+		kittyHolder.getStyleClass().add("kitty-list");
+		VBox.setVgrow(kittyHolder, Priority.ALWAYS);
+		
+		numOfKitties = new Text();
+		numOfKitties.getStyleClass().addAll("kitty-heading", "kitty-count");
+		updateKittyCount();
+		HBox topText = new HBox(10, heading, numOfKitties);
+		VBox container = new VBox(10, topText, kittyHolder);
+		container.setPrefWidth(327.00);
+		container.getStyleClass().add("kitty-panel");
+		BorderPane.setMargin(container, new Insets(0, 10, 0, 10));
+		event.reason = "build";
+		event.rows = kittyItems.size();
+		event.commit();
+		metrics.panelRebuilt();
+		return container;
+	}
+	
+	/**
+	 * Refresh the kitty count beside the side panel heading
+	 */
+	private void updateKittyCount() {
+		if (numOfKitties != null) {
+			numOfKitties.setText(model.size() + "/" + kittyLimit);
+		}
+	}
+	
+	/**
+	 * Apply a batch of the model's changes to the side panel
+	 * Removed kitties let go of their rows before the list changes, as their ids may already have been
+	 * given to the new kitties those rows are rebound to.
+	 * @param removed int[] - ids of removed kitties
+	 * @param added int[] - ids of new kitties, in the order they were added
+	 */
+	private void updateSidePanel(int[] removed, int[] added) {
+		for (int id : removed) {
+			kittyControls.release(id);
+		}
+		kittyItems.update(removed, added);
+		if (removed.length > 0 || added.length > 0) {
+			updateKittyCount();
+		}
+	}
+	
+	/**
+	 * Build only the current kitties side panel, listing a model, for harnesses that drive the panel without
+	 * the rest of the scene (tests). Must be called on the application thread.
+	 * @param model KittySceneModel - scene to list
+	 * @return ListView - the panel's list, rows come from its own cell factory
+	 */
+	ListView<Integer> showSidePanel(KittySceneModel model) {
+		this.model = model;
+		kittyStore = model.getStore();
+		model.addListener((scene, change) -> updateSidePanel(change.getRemoved(), change.getAdded()));
+		get_currentKitties();
+		return kittyHolder;
+	}
+	
+	/**
+	 * @return int - side panel rows bound to a kitty
+	 */
+	int getBoundRows() {
+		return kittyControls.size();
+	}
+	
+	/**
+	 * @return int - thumbnails side panel rows are showing
+	 */
+	int getShownThumbnails() {
+		return thumbnails.users.size();
+	}
+	
+	/**
+	 * @return int - thumbnails painted into the atlas, shown or not
+	 */
+	int getPaintedThumbnails() {
+		return thumbnails.slots.size();
+	}
+	
+	/**
+	 * Background Controls
+	 * Checkboxes to control background elements via GUI
+	 * @return HBox containing control UI elements
+	 */
+	private HBox get_bgControls() {
+		EventRecorder bgChooser = new EventRecorder(new BackgroundEditor());
+		Text bgText = new Text("Toggle Background Elements:");
+		bgText.getStyleClass().add("kitty-label");
+		
+		pyramidCheckBox = new CheckBox("Pyramid");
+		moonCheckBox = new CheckBox("Moon");
+		nightCheckBox = new CheckBox("Night");
+		pyramidCheckBox.setId("pyramidCheckBox");
+		moonCheckBox.setId("moonCheckBox");
+		nightCheckBox.setId("nightCheckBox");
+		
+		pyramidCheckBox.getStyleClass().add("kitty-option");
+		moonCheckBox.getStyleClass().add("kitty-option");
+		nightCheckBox.getStyleClass().add("kitty-option");
+		
+		pyramidCheckBox.setSelected(true);
+		moonCheckBox.setSelected(true);
+		nightCheckBox.setSelected(true);
+		
+		pyramidCheckBox.setOnAction(bgChooser);
+		moonCheckBox.setOnAction(bgChooser);
+		nightCheckBox.setOnAction(bgChooser);
+		
+		HBox bgControls = new HBox(10, bgText, pyramidCheckBox, nightCheckBox, moonCheckBox);
+		bgControls.setPrefWidth(WIDTH+10);
+		return bgControls;
+	}
+	
+	/**
+	 * Kitty Maker Controls
+	 * Controls for instantiating new kitties
+	 * @return
+	 */
+	private HBox get_kittyControls() {
+		kittyHeight = new ToggleGroup();
+		tall = new RadioButton("tall");
+		tall.getStyleClass().add("kitty-option");
+		smol = new RadioButton("smol");
+		smol.getStyleClass().add("kitty-option");
+		smol.setToggleGroup(kittyHeight);
+		tall.setToggleGroup(kittyHeight);
+		
+		kittyWidth = new ToggleGroup();
+		thicc = new RadioButton("thicc");
+		thicc.getStyleClass().add("kitty-option");
+		hungry = new RadioButton("hungry");
+		hungry.getStyleClass().add("kitty-option");
+		thicc.setToggleGroup(kittyWidth);
+		hungry.setToggleGroup(kittyWidth);
+		
+		tall.setId("tall");
+		smol.setId("smol");
+		thicc.setId("thicc");
+		hungry.setId("hungry");
+		createBtn.setId("createBtn");
+		
+		createBtn.getStyleClass().add("kitty-action");
+		
+		spawnCount.setId("spawnCount");
+		spawnCount.setPrefColumnCount(6);
+		spawnBtn.setId("spawnBtn");
+		spawnBtn.getStyleClass().add("kitty-action");
+		
+		VBox kittyMakerL = new VBox(10, tall, smol);
+		VBox kittyMakerR = new VBox(10, thicc, hungry);
+		wanderCheckBox.setId("wanderCheckBox");
+		wanderCheckBox.getStyleClass().add("kitty-option");
+		VBox kittySpawner = new VBox(10, spawnCount, spawnBtn);
+		statsCheckBox.setId("statsCheckBox");
+		statsCheckBox.getStyleClass().add("kitty-option");
+		darkCheckBox.setId("darkCheckBox");
+		darkCheckBox.getStyleClass().add("kitty-option");
+		VBox kittyMover = new VBox(10, wanderCheckBox, statsCheckBox, darkCheckBox);
+		saveBtn.setId("saveBtn");
+		loadBtn.setId("loadBtn");
+		posterBtn.setId("posterBtn");
+		undoBtn.setId("undoBtn");
+		redoBtn.setId("redoBtn");
+		VBox sceneFile = new VBox(10, new HBox(10, saveBtn, loadBtn, posterBtn), new HBox(10, undoBtn, redoBtn));
+
+		HBox container = new HBox(20, kittyMakerL, kittyMakerR, createBtn, kittySpawner, kittyMover, sceneFile);
+		container.getStyleClass().add("kitty-toolbar");
+		return container;
+	}
+	
+	/**
+	 * RandomX
+	 * Used before kitties were placed by the KittyPlacer, keeping for potential later use.
+	 * @return double - a random valid X coordinate
+	 */
+	@SuppressWarnings("unused")
+	private double randomX() {
+		return 50 + random.nextDouble() * ((WIDTH-75) - 50 + 1);
+	}
+	
+	/**
+	 * RandomY
+	 * Used before kitties were placed by the KittyPlacer, keeping for potential later use.
+	 * @param g - Ground object
+	 * @return double - a random valid Y coordinate
+	 */
+	@SuppressWarnings("unused")
+	private double randomY(Ground g) {
+		return g.getHeight() + random.nextDouble() * ((HEIGHT-75) - g.getHeight() + 1);
+	}
+	
+	/**
+	 * Random Size
+	 * Used for previous assignment, keeping for potential later use.
+	 * @return double - a random valid size scale
+	 */
+	@SuppressWarnings("unused")
+	private int randomSize() {
+		return 1 + random.nextInt(2);
+	}
+	
+	/**
+	 * Background Editor
+	 * Event Listeners for background changing elements, the scenery is redrawn once the model's change is applied
+	 *
+	 */
+	private class BackgroundEditor implements EventHandler<ActionEvent> {
+		@Override
+		public void handle(ActionEvent e) {
+			KittyEvents.BackgroundToggle event = new KittyEvents.BackgroundToggle();
+			event.begin();
+			boolean shown = false;
+			if (e.getSource() == pyramidCheckBox) {
+				shown = !model.isPyramidVisible();
+				model.setPyramidVisible(shown);
+			} else if (e.getSource() == moonCheckBox) {
+				shown = !model.isMoonVisible();
+				model.setMoonVisible(shown);
+			} else if (e.getSource() == nightCheckBox) {
+				shown = !model.isNight();
+				model.setNight(shown);
+			}
+			event.element = ((CheckBox) e.getSource()).getId();
+			event.shown = shown;
+			event.commit();
+			metrics.backgroundToggled();
+		}
+	}
+	
+	/**
+	 * EventRecorder
+	 * Adds the action events a handler is given to the event log while recording, then passes them on,
+	 * timing each dispatch as a flight recorder event
+	 */
+	private class EventRecorder implements EventHandler<ActionEvent> {
+		private EventHandler<ActionEvent> handler;
+		
+		public EventRecorder(EventHandler<ActionEvent> handler) {
+			this.handler = handler;
+		}
+		
+		@Override
+		public void handle(ActionEvent e) {
+			// controls with no id cannot be found again to replay
+			if (eventLog != null && !replaying && e.getSource() instanceof Node && ((Node) e.getSource()).getId() != null) {
+				Node source = (Node) e.getSource();
+				String text = (source == spawnBtn) ? spawnCount.getText()
+						: (handler instanceof KittyRowHandler) ? ((KittyRowHandler) handler).describe(source) : "";
+				eventLog.add(System.nanoTime() - recordStart, source.getId(), text);
+			}
+			KittyEvents.Dispatch event = new KittyEvents.Dispatch();
+			event.begin();
+			handler.handle(e);
+			event.handler = handler.getClass().getSimpleName();
+			event.source = (e.getSource() instanceof Node) ? ((Node) e.getSource()).getId() : null;
+			event.commit();
+			metrics.dispatched();
+		}
+	}
+	
+	/**
+	 * KittyChoices
+	 * Used to handle radio checks on the Kitty Creator Panel
+	 */
+	private class KittyChoices implements EventHandler<ActionEvent> {
+		@Override
+		public void handle(ActionEvent e) {
+			if (e.getSource() == tall) {
+				model.chooseTall(true);
+			} else if (e.getSource() == smol) {
+				model.chooseTall(false);
+			} else if (e.getSource() == thicc) {
+				model.chooseThicc(true);
+			} else if (e.getSource() == hungry) {
+				model.chooseThicc(false);
+			}
+		}
+	}
+	
+	/**
+	 * KittyDragger
+	 * Mouse handling on the image. Pressing on a kitty selects it (shift adds to the selection) and
+	 * dragging moves every selected kitty. Pressing on empty ground drags out a rubber band that selects
+	 * every visible kitty whose center ends up inside it. Dragging with the right button pans the view.
+	 * Everything but panning works in world coordinates. Reads of the grid hold the model lock, as a loader
+	 * or spawn may be adding kitties from another thread.
+	 */
+	private class KittyDragger implements EventHandler<MouseEvent> {
+		private boolean dragging;
+		private boolean banding;
+		private boolean panning;
+		private double startX;
+		private double startY;
+		private double lastX;
+		private double lastY;
+		
+		@Override
+		public void handle(MouseEvent e) {
+			double x = toWorldX(e.getX());
+			double y = toWorldY(e.getY());
+			if (e.getEventType() == MouseEvent.MOUSE_PRESSED) {
+				if (e.isSecondaryButtonDown()) {
+					panning = true;
+					lastX = e.getX();
+					lastY = e.getY();
+					return;
+				}
+				int id;
+				synchronized (model) {
+					id = pickKitty(x, y);
+				}
+				if (!e.isShiftDown() && !selection.contains(id)) {
+					selection.clear();
+				}
+				if (id >= 0) {
+					selection.add(id);
+					dragging = true;
+				} else {
+					banding = true;
+					selectionLayer.setBand(x, y, x, y);
+				}
+				startX = lastX = x;
+				startY = lastY = y;
+				selectionLayer.paint();
+			} else if (e.getEventType() == MouseEvent.MOUSE_DRAGGED) {
+				if (panning) {
+					setView(viewX - (e.getX() - lastX) / zoom, viewY - (e.getY() - lastY) / zoom, zoom);
+					lastX = e.getX();
+					lastY = e.getY();
+					return;
+				}
+				if (dragging) {
+					double dx = x - lastX;
+					double dy = y - lastY;
+					synchronized (model) {
+						for (int id : selection) {
+							model.move(id, Math.min(worldWidth, Math.max(0, kittyGrid.getX(id) + dx)),
+									Math.min(worldHeight, Math.max(0, kittyGrid.getY(id) + dy)));
+						}
+					}
+				} else if (banding) {
+					selectionLayer.setBand(startX, startY, x, y);
+				}
+				lastX = x;
+				lastY = y;
+				selectionLayer.paint();
+			} else if (e.getEventType() == MouseEvent.MOUSE_RELEASED) {
+				if (panning) {
+					panning = false;
+					return;
+				}
+				if (banding) {
+					double minX = Math.min(startX, x);
+					double minY = Math.min(startY, y);
+					double maxX = Math.max(startX, x);
+					double maxY = Math.max(startY, y);
+					synchronized (model) {
+						kittyGrid.query(minX, minY, maxX, maxY, id -> {
+							double cx = kittyGrid.getX(id);
+							double cy = kittyGrid.getY(id);
+							if (cx >= minX && cx <= maxX && cy >= minY && cy <= maxY && kittyStore.isVisible(kittyStore.indexOf(id))) {
+								selection.add(id);
+							}
+						});
+					}
+					selectionLayer.hideBand();
+				}
+				if (dragging) {
+					refreshCreateButton();
+				}
+				dragging = false;
+				banding = false;
+				selectionLayer.paint();
+			}
+		}
+	}
+	
+	/**
+	 * ViewNavigator
+	 * Scrolling pans the view, ctrl+scroll and pinching zoom it about the pointer.
+	 */
+	private class ViewNavigator implements EventHandler<GestureEvent> {
+		// zoom multiplier per pixel scrolled
+		private static final double SCROLL_ZOOM = 1.002;
+		
+		@Override
+		public void handle(GestureEvent e) {
+			if (e instanceof ZoomEvent) {
+				zoomAt(e.getX(), e.getY(), ((ZoomEvent) e).getZoomFactor());
+			} else if (e instanceof ScrollEvent) {
+				ScrollEvent scroll = (ScrollEvent) e;
+				if (scroll.isControlDown()) {
+					zoomAt(e.getX(), e.getY(), Math.pow(SCROLL_ZOOM, scroll.getDeltaY()));
+				} else {
+					setView(viewX - scroll.getDeltaX() / zoom, viewY - scroll.getDeltaY() / zoom, zoom);
+				}
+			}
+			e.consume();
+		}
+	}
+	
+	/**
+	 * KittyRowHandler
+	 * Handles the visibility and delete controls of one side panel row, bound to the id of the kitty
+	 * the row is showing so no lookup over the other kitties is needed.
+	 */
+	private class KittyRowHandler implements EventHandler<ActionEvent> {
+		private CheckBox visible;
+		private Button delete;
+		private int id = -1;
+		
+		/**
+		 * KittyRowHandler
+		 * Class Constructor
+		 * @param visible CheckBox - row visibility control
+		 * @param delete Button - row delete control
+		 */
+		public KittyRowHandler(CheckBox visible, Button delete) {
+			this.visible = visible;
+			this.delete = delete;
+		}
+		
+		public void bind(int id) {
+			this.id = id;
+		}
+		
+		/**
+		 * What a recording needs to replay an event from one of this row's controls
+		 * @param source Object - the control
+		 * @return String - the kitty id, and for the visibility control whether it is now shown
+		 */
+		public String describe(Object source) {
+			return (source == visible) ? id + " " + visible.isSelected() : String.valueOf(id);
+		}
+		
+		@Override
+		public void handle(ActionEvent e) {
+			if (e.getSource() == visible) {
+				model.setVisible(id, visible.isSelected());
+			} else if (e.getSource() == delete) {
+				model.remove(id);
+			}
+		}
+	}
+	
+	/**
+	 * KittyCreator 
+	 * Handles Button down events for the kitty creator button and instantiates kitties.
+	 * The spawn button spawns the number of random kitties typed beside it in bulk.
+	 */
+	private class KittyCreator implements EventHandler<ActionEvent> {
+		@Override
+		public void handle(ActionEvent e) {
+			if (e.getSource() == createBtn) {
+				// tall or smol and thicc or hungry, the choices are cleared either way
+				model.createChosen();
+				smol.setSelected(false);
+				tall.setSelected(false);
+				thicc.setSelected(false);
+				hungry.setSelected(false);
+			} else if (e.getSource() == spawnBtn) {
+				int count;
+				try {
+					count = Integer.parseInt(spawnCount.getText().trim());
+				} catch (NumberFormatException ex) {
+					spawnCount.selectAll();
+					return;
+				}
+				spawning = true;
+				refreshCreateButton();
+				pendingSpawn = spawnKitties(count).whenCompleteAsync((added, error) -> {
+					if (error != null) {
+						System.err.println("Spawning kitties failed: " + error);
+					}
+					spawning = false;
+					refreshCreateButton();
+				}, Platform::runLater);
+			}
+		}
+	}
+	
+	/**
+	 * HistoryHandler
+	 * Undoes or redoes the last step, the change shows when the model is next flushed
+	 */
+	private class HistoryHandler implements EventHandler<ActionEvent> {
+		@Override
+		public void handle(ActionEvent e) {
+			if (e.getSource() == undoBtn) {
+				model.getHistory().undo();
+			} else {
+				model.getHistory().redo();
+			}
+			refreshHistoryButtons();
+		}
+	}
+	
+	/**
+	 * SceneFileHandler
+	 * Saves the scene to, or loads it from, a file picked by the user, or exports it as a poster
+	 */
+	private class SceneFileHandler implements EventHandler<ActionEvent> {
+		private FileChooser chooser = new FileChooser();
+		private FileChooser posterChooser = new FileChooser();
+		
+		public SceneFileHandler() {
+			chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Kitty scenes", "*.kitties"));
+			posterChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG images", "*.png"));
+		}
+		
+		@Override
+		public void handle(ActionEvent e) {
+			if (e.getSource() == saveBtn) {
+				File file = chooser.showSaveDialog(stage);
+				if (file == null) {
+					return;
+				}
+				try {
+					saveScene(file.toPath());
+				} catch (IOException ex) {
+					System.err.println("Could not save " + file + ": " + ex);
+				}
+			} else if (e.getSource() == loadBtn) {
+				File file = chooser.showOpenDialog(stage);
+				if (file == null) {
+					return;
+				}
+				loadSceneFromControls(file.toPath());
+			} else if (e.getSource() == posterBtn) {
+				File file = posterChooser.showSaveDialog(stage);
+				if (file == null) {
+					return;
+				}
+				posterBtn.setDisable(true);
+				exportPoster(file.toPath(), posterWidth).whenCompleteAsync((bytes, error) -> {
+					if (error != null) {
+						System.err.println("Could not export " + file + ": " + error);
+					}
+					posterBtn.setDisable(false);
+				}, Platform::runLater);
+			}
+		}
+	}
+	
+	/**
+	 * SceneUpdater
+	 * Flushes the model at the start of every pulse and applies each batch of its changes to the view: the
+	 * nodes or canvas repaints, the side panel, the selection, the background and the creator controls.
+	 * Removals are applied before additions, as removed ids may already have been given to new kitties.
+	 */
+	private class SceneUpdater extends AnimationTimer implements KittySceneListener {
+		@Override
+		public void handle(long now) {
+			long start = System.nanoTime();
+			// fed commands go out in the same batch as the pulse's other changes
+			boolean fed = feed != null && feed.drain(model, feedBudget) > 0;
+			if (model.flush() || fed) {
+				frameWork += System.nanoTime() - start;
+			}
+		}
+		
+		@Override
+		public void sceneChanged(KittySceneModel model, KittySceneChange change) {
+			int[] removed = change.getRemoved();
+			int[] added = change.getAdded();
+			int[] changed = change.getChanged();
+			boolean selectionChanged = change.isMoved() && !selection.isEmpty();
+			if (removed.length > 0) {
+				removeKitties(removed);
+				for (int id : removed) {
+					selectionChanged |= selection.remove(id);
+				}
+			}
+			if (added.length > 0) {
+				addKitties(added);
+			}
+			for (int c = 0; c < changed.length; c++) {
+				int id = changed[c];
+				int i = kittyStore.indexOf(id);
+				boolean visible = kittyStore.isVisible(i);
+				selectionChanged |= visible ? selection.contains(id) : selection.remove(id);
+				if (canvasMode) {
+					kittyLayer.markDirty(change.getChangedFromX(c), change.getChangedFromY(c), kittyStore.getScaleX(i), kittyStore.getScaleY(i));
+					kittyLayer.markDirty(i);
+				} else {
+					Kitty cat = kittyNodes.get(id);
+					cat.moveTo(kittyStore.getX(i), kittyStore.getY(i));
+					cat.setVisible(visible);
+				}
+				KittyCell row = kittyControls.get(id);
+				if (row != null) {
+					row.visible.setSelected(visible);
+				}
+			}
+			if (change.isMoved() && !canvasMode) {
+				for (int i = 0; i < kittyStore.size(); i++) {
+					kittyNodes.get(kittyStore.idAt(i)).moveTo(kittyStore.getX(i), kittyStore.getY(i));
+				}
+			}
+			if (canvasMode && (removed.length > 0 || added.length > 0 || change.isMoved())) {
+				kittyLayer.markDirty();
+			}
+			if (change.isBackgroundChanged()) {
+				showBackground();
+			}
+			if (change.isChoicesChanged()) {
+				tall.setSelected(model.isTall());
+				smol.setSelected(model.isSmol());
+				thicc.setSelected(model.isThicc());
+				hungry.setSelected(model.isHungry());
+			}
+			updateSidePanel(removed, added);
+			if (selectionChanged) {
+				selectionLayer.paint();
+			}
+			if (removed.length > 0 || added.length > 0 || changed.length > 0 || change.isChoicesChanged()) {
+				refreshCreateButton();
+			}
+			refreshHistoryButtons();
+		}
+		
+		private void removeKitties(int[] removed) {
+			ArrayList<Kitty> nodes = new ArrayList<Kitty>(canvasMode ? 0 : removed.length);
+			for (int id : removed) {
+				Kitty cat = kittyNodes.remove(id);
+				if (cat != null) {
+					nodes.add(cat);
+				}
+			}
+			if (nodes.size() == kittyGroup.getChildren().size()) {
+				kittyGroup.getChildren().clear();
+			} else if (!nodes.isEmpty()) {
+				kittyGroup.getChildren().removeAll(new HashSet<Kitty>(nodes));
+			}
+		}
+		
+		private void addKitties(int[] added) {
+			KittyEvents.Construction event = new KittyEvents.Construction();
+			event.begin();
+			if (!canvasMode) {
+				ArrayList<Kitty> nodes = new ArrayList<Kitty>(added.length);
+				for (int id : added) {
+					int i = kittyStore.indexOf(id);
+					Kitty cat = prebuiltNodes.remove(id);
+					if (cat == null) {
+						cat = new Kitty(Kitty.toColor(kittyStore.getMainColor(i)), Kitty.toColor(kittyStore.getEyeColor(i)),
+								kittyStore.getX(i), kittyStore.getY(i), kittyStore.getScaleX(i), kittyStore.getScaleY(i));
+					} else {
+						cat.moveTo(kittyStore.getX(i), kittyStore.getY(i));
+					}
+					cat.setVisible(kittyStore.isVisible(i));
+					if (kittyDetail != KittyDetail.FULL) {
+						cat.setDetail(kittyDetail);
+					}
+					kittyNodes.put(id, cat);
+					nodes.add(cat);
+				}
+				kittyGroup.getChildren().addAll(nodes);
+				// whatever is left was added and removed again before this batch
+				prebuiltNodes.clear();
+			}
+			event.count = added.length;
+			event.nodes = !canvasMode;
+			event.commit();
+			metrics.kittiesCreated(added.length);
+		}
+	}
+	
+	/**
+	 * KittyAnimator
+	 * Drives the wandering simulation from the animation pulse on a fixed timestep. Each frame runs as many
+	 * steps as the time since the last frame covers, capped so a stall is not caught up all at once, in the
+	 * model, and applies the moves straight away: node translations, or one repaint in canvas mode.
+	 * At the lowest detail level every other tick is skipped, the next one catches up.
+	 * Also handles the wander checkbox.
+	 */
+	private class KittyAnimator extends AnimationTimer implements EventHandler<ActionEvent> {
+		private static final int MAX_STEPS = 4;
+		private long last = -1;
+		// simulated time owed, in seconds
+		private double pending;
+		private long ticks;
+		
+		@Override
+		public void handle(ActionEvent e) {
+			setWandering(wanderCheckBox.isSelected());
+		}
+		
+		@Override
+		public void handle(long now) {
+			if (last >= 0) {
+				pending = Math.min(pending + (now - last) / 1e9, MAX_STEPS * KittyMotion.STEP);
+			}
+			last = now;
+			if (pending < KittyMotion.STEP || (kittyDetail.skipsTicks() && ticks++ % 2 == 0)) {
+				return;
+			}
+			long start = System.nanoTime();
+			int steps = 0;
+			while (pending >= KittyMotion.STEP) {
+				steps++;
+				pending -= KittyMotion.STEP;
+			}
+			model.step(steps);
+			// the scene updater has already run this pulse
+			model.flush();
+			frameWork += System.nanoTime() - start;
+		}
+		
+		@Override
+		public void stop() {
+			super.stop();
+			last = -1;
+			pending = 0;
+			refreshCreateButton();
+		}
+	}
+	
+	/**
+	 * FrameMonitor
+	 * Reports every pulse and the kitty work done since the last one to the frame budget, and redraws the
+	 * kitties and tells the metrics when it changes the detail level.
+	 */
+	private class FrameMonitor extends AnimationTimer {
+		@Override
+		public void handle(long now) {
+			long work = frameWork;
+			frameWork = 0;
+			if (frameBudget.frame(now, work)) {
+				setKittyDetail(frameBudget.getDetail());
+				metrics.detailChanged(frameBudget.getDetail(), frameBudget.getLastReason(), frameBudget.getStepsDown(),
+						frameBudget.getStepsUp());
+			}
+		}
+	}
+	
+	/**
+	 * ThemeSwitcher
+	 * Handles the dark theme checkbox
+	 */
+	private class ThemeSwitcher implements EventHandler<ActionEvent> {
+		@Override
+		public void handle(ActionEvent e) {
+			setDarkTheme(darkCheckBox.isSelected());
+		}
+	}
+	
+	/**
+	 * PaintWatcher
+	 * Runs a task once the frame being built has been painted. A pulse only starts once the frame of the pulse
+	 * before it has been rendered, so that is the second pulse from when the watcher is started.
+	 */
+	private class PaintWatcher extends AnimationTimer {
+		private final Runnable task;
+		private int pulses;
+		
+		public PaintWatcher(Runnable task) {
+			this.task = task;
+		}
+		
+		@Override
+		public void handle(long now) {
+			if (++pulses == 2) {
+				stop();
+				task.run();
+			}
+		}
+	}
+	
+	/**
+	 * MetricsMonitor
+	 * Feeds the start of every animation pulse, and the end of its layout pass, to the metrics, and twice a
+	 * second takes a new snapshot (counting the scene graph) for JMX and shows it on the overlay if it is up.
+	 * Runs for as long as the metrics are registered. Also handles the stats checkbox.
+	 */
+	private class MetricsMonitor extends AnimationTimer implements EventHandler<ActionEvent>, Runnable {
+		private static final long PUBLISH_NANOS = 500000000L;
+		private long lastPublish = -1;
+		
+		@Override
+		public void handle(long now) {
+			metrics.pulse(now);
+			if (lastPublish < 0 || now - lastPublish >= PUBLISH_NANOS) {
+				lastPublish = now;
+				publish();
+			}
+		}
+		
+		@Override
+		public void handle(ActionEvent e) {
+			setStatsVisible(statsCheckBox.isSelected());
+		}
+		
+		/**
+		 * Runs after the layout pass of every pulse
+		 */
+		@Override
+		public void run() {
+			metrics.pulseDone(System.nanoTime());
+		}
+		
+		@Override
+		public void stop() {
+			super.stop();
+			metrics.resetPulses();
+			lastPublish = -1;
+		}
+		
+		private void publish() {
+			metrics.publish(countNodes(root), model.size());
+			if (statsOverlay.isVisible()) {
+				showStats();
+			}
+		}
+		
+		public void showStats() {
+			String stats = String.format(Locale.ROOT,
+					"%.1f fps%nframe interval p50 %.1f ms  p99 %.1f ms%npulse p50 %.1f ms  p99 %.1f ms%nnodes %d  kitties %d%nheap %d / %d MB",
+					metrics.getFramesPerSecond(), metrics.getFrameIntervalP50Millis(), metrics.getFrameIntervalP99Millis(),
+					metrics.getPulseDurationP50Millis(), metrics.getPulseDurationP99Millis(),
+					metrics.getNodeCount(), metrics.getLiveKitties(),
+					metrics.getHeapUsedBytes() >> 20, metrics.getHeapMaxBytes() >> 20);
+			if (frameBudget != null) {
+				stats += String.format(Locale.ROOT, "%ndetail %s  %d down  %d up", metrics.getDetailLevel(),
+						metrics.getDetailStepsDown(), metrics.getDetailStepsUp());
+				if (!metrics.getLastDetailChange().isEmpty()) {
+					stats += String.format(Locale.ROOT, "%n%s", metrics.getLastDetailChange());
+				}
+			}
+			if (feed != null) {
+				stats += String.format(Locale.ROOT, "%nfeed %d / %d queued  %d dropped", metrics.getFeedQueueDepth(),
+						feed.getCapacity(), metrics.getFeedDropped());
+			}
+			statsOverlay.setText(stats);
+		}
+		
+		private long countNodes(Parent parent) {
+			long count = 1;
+			for (Node child : parent.getChildrenUnmodifiable()) {
+				count += (child instanceof Parent) ? countNodes((Parent) child) : 1;
+			}
+			return count;
+		}
+	}
+	
+	/**
+	 * KittyCanvas
+	 * Immediate mode kitty layer, the scenery and every kitty in view are painted onto one canvas in a single pass.
+	 * Painting only happens on the next animation pulse after the layer has been marked dirty.
+	 * Only kitties the grid finds in view are drawn. Zoomed out far enough that kitty details would be a few
+	 * pixels, each kitty is just its body ellipse in its main color, and further out a single pixel. Both are
+	 * rasterised straight into a pixel buffer that is drawn over the scenery in one go.
+	 * Painting holds the model lock.
+	 */
+	private class KittyCanvas extends Canvas {
+		// kitty parts reach past the bounding ellipse by at most 15 by 52 per unit of scale, scales go up to 2
+		private static final double REPAINT_PAD_X = 30;
+		private static final double REPAINT_PAD_Y = 104;
+		// below this zoom kitties are ellipses, below the next a unit kitty's body is under a pixel high
+		private static final double ELLIPSE_ZOOM = 0.25;
+		private static final double PIXEL_ZOOM = 1.0 / 40;
+		private boolean dirty = true;
+		// pending partial repaint in world coordinates, empty when minX > maxX
+		private double dirtyMinX = Double.MAX_VALUE;
+		private double dirtyMinY = Double.MAX_VALUE;
+		private double dirtyMaxX = -Double.MAX_VALUE;
+		private double dirtyMaxY = -Double.MAX_VALUE;
+		// store indexes of the kitties being painted
+		private int[] culled = new int[64];
+		private int culledCount;
+		// low detail kitties, ARGB
+		private WritableImage lodImage;
+		private int[] lodPixels;
+		private AnimationTimer painter;
+		
+		/**
+		 * KittyCanvas
+		 * Class Constructor
+		 * @param width double - width of the layer
+		 * @param height double - height of the layer
+		 */
+		public KittyCanvas(double width, double height) {
+			super(width, height);
+			setMouseTransparent(true);
+			painter = new AnimationTimer() {
+				@Override
+				public void handle(long now) {
+					long start = System.nanoTime();
+					synchronized (model) {
+						if (dirty || (dirtyMinX <= dirtyMaxX && zoom < ELLIPSE_ZOOM)) {
+							dirty = false;
+							clearDirtyRegion();
+							paint();
+						} else if (dirtyMinX <= dirtyMaxX) {
+							paintRegion(dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY);
+							clearDirtyRegion();
+						} else {
+							return;
+						}
+					}
+					frameWork += System.nanoTime() - start;
+				}
+			};
+			painter.start();
+		}
+		
+		/**
+		 * Request a repaint on the next pulse
+		 */
+		public void markDirty() {
+			dirty = true;
+		}
+		
+		/**
+		 * Request a repaint of just the area a kitty covers on the next pulse
+		 * @param index int - store index of the kitty
+		 */
+		public void markDirty(int index) {
+			markDirty(kittyStore.getX(index), kittyStore.getY(index), kittyStore.getScaleX(index), kittyStore.getScaleY(index));
+		}
+		
+		/**
+		 * Request a repaint of the area a kitty would cover at a given spot on the next pulse
+		 * @param x double - center X
+		 * @param y double - center Y
+		 * @param scaleX double - horizontal scale
+		 * @param scaleY double - vertical scale
+		 */
+		public void markDirty(double x, double y, double scaleX, double scaleY) {
+			KittyTemplate t = KittyTemplate.of(scaleX, scaleY);
+			dirtyMinX = Math.min(dirtyMinX, x + t.getMinX());
+			dirtyMinY = Math.min(dirtyMinY, y + t.getMinY());
+			dirtyMaxX = Math.max(dirtyMaxX, x + t.getMaxX());
+			dirtyMaxY = Math.max(dirtyMaxY, y + t.getMaxY());
+		}
+		
+		private void clearDirtyRegion() {
+			dirtyMinX = Double.MAX_VALUE;
+			dirtyMinY = Double.MAX_VALUE;
+			dirtyMaxX = -Double.MAX_VALUE;
+			dirtyMaxY = -Double.MAX_VALUE;
+		}
+		
+		/**
+		 * Repaint one area of the world, only the kitties the grid finds near it are drawn
+		 */
+		private void paintRegion(double minX, double minY, double maxX, double maxY) {
+			// whole pixels so the cleared edge is not left half blended
+			double left = Math.floor((minX - viewX) * zoom) - 1;
+			double top = Math.floor((minY - viewY) * zoom) - 1;
+			double right = Math.ceil((maxX - viewX) * zoom) + 1;
+			double bottom = Math.ceil((maxY - viewY) * zoom) + 1;
+			cull(toWorldX(left), toWorldY(top), toWorldX(right), toWorldY(bottom), true);
+			
+			GraphicsContext gc = getGraphicsContext2D();
+			gc.save();
+			gc.beginPath();
+			gc.rect(left, top, right - left, bottom - top);
+			gc.clip();
+			paintScenery(gc, left, top, right - left, bottom - top);
+			paintCulled(gc);
+			gc.restore();
+		}
+		
+		/**
+		 * Paint the whole view
+		 */
+		private void paint() {
+			GraphicsContext gc = getGraphicsContext2D();
+			paintScenery(gc, 0, 0, getWidth(), getHeight());
+			boolean detailed = zoom >= ELLIPSE_ZOOM;
+			// low detail kitties are too small for the draw order to show
+			cull(viewX, viewY, toWorldX(getWidth()), toWorldY(getHeight()), detailed);
+			if (detailed) {
+				paintCulled(gc);
+			} else {
+				paintLowDetail(gc);
+			}
+		}
+		
+		/**
+		 * Draw the part of the scenery bitmap that lies under an area of the canvas
+		 */
+		private void paintScenery(GraphicsContext gc, double x, double y, double width, double height) {
+			double scale = zoom * worldScale;
+			gc.drawImage(sceneryLayer.getImage(), toWorldX(x) / worldScale, toWorldY(y) / worldScale, width / scale, height / scale, x, y, width, height);
+		}
+		
+		/**
+		 * Collect the store indexes of the kitties that may show in an area of the world
+		 * @param ordered boolean - keep the store's draw order
+		 */
+		private void cull(double minX, double minY, double maxX, double maxY, boolean ordered) {
+			culledCount = 0;
+			kittyGrid.query(minX - REPAINT_PAD_X, minY - REPAINT_PAD_Y, maxX + REPAINT_PAD_X, maxY + REPAINT_PAD_Y, id -> {
+				if (culledCount == culled.length) {
+					culled = Arrays.copyOf(culled, culledCount * 2);
+				}
+				culled[culledCount++] = kittyStore.indexOf(id);
+			});
+			if (ordered) {
+				Arrays.sort(culled, 0, culledCount);
+			}
+		}
+		
+		/**
+		 * Paint the culled kitties in full through the view transform
+		 */
+		private void paintCulled(GraphicsContext gc) {
+			gc.save();
+			gc.transform(zoom, 0, 0, zoom, -viewX * zoom, -viewY * zoom);
+			gc.setStroke(Color.BLACK);
+			KittyStore store = kittyStore;
+			for (int c = 0; c < culledCount; c++) {
+				int i = culled[c];
+				if (store.isVisible(i)) {
+					kittyPainter.paintKitty(gc, Kitty.toColor(store.getMainColor(i)), Kitty.toColor(store.getEyeColor(i)),
+							store.getX(i), store.getY(i), store.getScaleX(i), store.getScaleY(i), kittyDetail);
+				}
+			}
+			gc.restore();
+		}
+		
+		/**
+		 * Rasterise the culled kitties as ellipses or pixels and draw them over the scenery
+		 */
+		private void paintLowDetail(GraphicsContext gc) {
+			int width = (int) getWidth();
+			int height = (int) getHeight();
+			if (lodImage == null) {
+				lodImage = new WritableImage(width, height);
+				lodPixels = new int[width * height];
+			}
+			Arrays.fill(lodPixels, 0);
+			boolean pixels = zoom < PIXEL_ZOOM;
+			KittyStore store = kittyStore;
+			for (int c = 0; c < culledCount; c++) {
+				int i = culled[c];
+				if (!store.isVisible(i)) {
+					continue;
+				}
+				double cx = (store.getX(i) - viewX) * zoom;
+				double cy = (store.getY(i) - viewY) * zoom;
+				if (pixels) {
+					int px = (int) cx;
+					int py = (int) cy;
+					if (px >= 0 && px < width && py >= 0 && py < height) {
+						lodPixels[py * width + px] = store.getMainColor(i);
+					}
+				} else {
+					fillEllipse(cx, cy, 90 * store.getScaleX(i) * zoom, 40 * store.getScaleY(i) * zoom, store.getMainColor(i), width, height);
+				}
+			}
+			// colors are opaque, so they are already premultiplied
+			lodImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getIntArgbPreInstance(), lodPixels, 0, width);
+			gc.drawImage(lodImage, 0, 0);
+		}
+		
+		/**
+		 * Fill the pixels whose centers fall inside an ellipse, one span per row
+		 */
+		private void fillEllipse(double cx, double cy, double rx, double ry, int argb, int width, int height) {
+			int firstRow = Math.max(0, (int) Math.ceil(cy - ry - 0.5));
+			int lastRow = Math.min(height - 1, (int) Math.floor(cy + ry - 0.5));
+			if (firstRow > lastRow) {
+				// flatter than a pixel, still show up as one
+				int px = (int) cx;
+				int py = (int) cy;
+				if (px >= 0 && px < width && py >= 0 && py < height) {
+					lodPixels[py * width + px] = argb;
+				}
+				return;
+			}
+			for (int y = firstRow; y <= lastRow; y++) {
+				double dy = (y + 0.5 - cy) / ry;
+				double half = rx * Math.sqrt(Math.max(0, 1 - dy * dy));
+				int from = Math.max(0, (int) Math.ceil(cx - half - 0.5));
+				int to = Math.min(width - 1, (int) Math.floor(cx + half - 0.5));
+				if (from <= to) {
+					Arrays.fill(lodPixels, y * width + from, y * width + to + 1, argb);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * SelectionLayer
+	 * Draws the outline of every selected kitty and the rubber band while one is being dragged out.
+	 * The band is in world coordinates, like the kitties.
+	 */
+	private class SelectionLayer extends Canvas {
+		private boolean showBand;
+		private double bandMinX;
+		private double bandMinY;
+		private double bandMaxX;
+		private double bandMaxY;
+		
+		/**
+		 * SelectionLayer
+		 * Class Constructor
+		 * @param width double - width of the layer
+		 * @param height double - height of the layer
+		 */
+		public SelectionLayer(double width, double height) {
+			super(width, height);
+			setMouseTransparent(true);
+		}
+		
+		public void setBand(double x1, double y1, double x2, double y2) {
+			showBand = true;
+			bandMinX = Math.min(x1, x2);
+			bandMinY = Math.min(y1, y2);
+			bandMaxX = Math.max(x1, x2);
+			bandMaxY = Math.max(y1, y2);
+		}
+		
+		public void hideBand() {
+			showBand = false;
+		}
+		
+		public void paint() {
+			GraphicsContext gc = getGraphicsContext2D();
+			gc.clearRect(0, 0, getWidth(), getHeight());
+			gc.save();
+			gc.transform(zoom, 0, 0, zoom, -viewX * zoom, -viewY * zoom);
+			// line widths are in world units too, keep them the same on screen
+			gc.setStroke(Color.rgb(252, 40, 78));
+			gc.setLineWidth(2 / zoom);
+			gc.setLineDashes(6 / zoom, 4 / zoom);
+			synchronized (model) {
+				for (int id : selection) {
+					double rx = kittyGrid.getRadiusX(id);
+					double ry = kittyGrid.getRadiusY(id);
+					gc.strokeOval(kittyGrid.getX(id) - rx, kittyGrid.getY(id) - ry, rx * 2, ry * 2);
+				}
+			}
+			if (showBand) {
+				gc.setFill(Color.rgb(252, 40, 78, 0.15));
+				gc.fillRect(bandMinX, bandMinY, bandMaxX - bandMinX, bandMaxY - bandMinY);
+				gc.strokeRect(bandMinX, bandMinY, bandMaxX - bandMinX, bandMaxY - bandMinY);
+			}
+			gc.restore();
+		}
+	}
+	
+	/**
+	 * SceneryLayer
+	 * The background and ground rasterised into a bitmap, one per combination of night, moon and pyramid.
+	 * The shapes are kept out of the scene and only drawn when a combination is first shown, so changes to
+	 * the kitties never redraw them. Call refresh() after changing the background.
+	 */
+	private class SceneryLayer extends ImageView {
+		// indexed by night, moon and pyramid bits
+		private WritableImage[] variants = new WritableImage[8];
+		private Group scenery = new Group(background, foreground);
+		private SnapshotParameters snapshotParams = new SnapshotParameters();
+		
+		/**
+		 * SceneryLayer
+		 * Class Constructor
+		 */
+		public SceneryLayer() {
+			// pyramid edges reach past the image, keep the bitmap lined up with it
+			snapshotParams.setViewport(new Rectangle2D(0, 0, WIDTH, HEIGHT));
+			refresh();
+		}
+		
+		/**
+		 * Show the bitmap for the current background, rasterising it if it has not been shown before
+		 */
+		public void refresh() {
+			int variant = sceneryVariant();
+			if (variants[variant] == null) {
+				variants[variant] = scenery.snapshot(snapshotParams, new WritableImage(WIDTH, HEIGHT));
+			}
+			setImage(variants[variant]);
+			showView();
+		}
+		
+		/**
+		 * Show the part of the landscape the view covers, used when the kitties are scene graph nodes
+		 */
+		public void showView() {
+			double scale = zoom * worldScale;
+			setViewport(new Rectangle2D(viewX / worldScale, viewY / worldScale, WIDTH / scale, HEIGHT / scale));
+			setFitWidth(WIDTH);
+			setFitHeight(HEIGHT);
+		}
+	}
+	
+	/**
+	 * KittyPainter
+	 * Immediate mode drawing of kitties onto a GraphicsContext.
+	 * Not thread safe, the polygon buffers are shared between calls.
+	 */
+	private class KittyPainter {
+		// reused polygon buffers so a frame does not allocate
+		private double[] xPoints = new double[3];
+		private double[] yPoints = new double[3];
+		// most kitties share a scale with the one painted before them
+		private KittyTemplate template = KittyTemplate.of(1, 1);
+		
+		/**
+		 * Paint a single kitty from its shared template, same draw order as the Kitty node
+		 * @param gc GraphicsContext - context to draw with
+		 * @param mainColor Color - main color
+		 * @param eyeColor Color - eye color
+		 * @param centerX double - center X position for the kitty
+		 * @param centerY double - center Y position for the kitty
+		 * @param scaleX double - horizontal scale
+		 * @param scaleY double - vertical scale
+		 * @param detail KittyDetail - which parts to draw
+		 */
+		private void paintKitty(GraphicsContext gc, Color mainColor, Color eyeColor, double centerX, double centerY, double scaleX, double scaleY, KittyDetail detail) {
+			if (template.getScaleX() != scaleX || template.getScaleY() != scaleY) {
+				template = KittyTemplate.of(scaleX, scaleY);
+			}
+			gc.setFill(mainColor);
+			if (detail.showsPaws()) {
+				fillEllipses(gc, template.getPawEllipses(), centerX, centerY);
+			}
+			fillEllipses(gc, template.getFurEllipses(), centerX, centerY);
+			double[] ears = template.getEarPoints();
+			for (int i = 0; detail.showsEars() && i < ears.length; i += 6) {
+				for (int p = 0; p < 3; p++) {
+					xPoints[p] = centerX + ears[i + p*2];
+					yPoints[p] = centerY + ears[i + p*2 + 1];
+				}
+				gc.fillPolygon(xPoints, yPoints, 3);
+			}
+			
+			gc.setFill(eyeColor);
+			fillEllipses(gc, template.getEyeEllipses(), centerX, centerY);
+			if (!detail.showsPupils()) {
+				return;
+			}
+			
+			double[] pupils = template.getPupilLines();
+			gc.setLineWidth(template.getPupilWidth());
+			for (int i = 0; i < pupils.length; i += 4) {
+				gc.strokeLine(centerX + pupils[i], centerY + pupils[i+1], centerX + pupils[i+2], centerY + pupils[i+3]);
+			}
+		}
+		
+		private void fillEllipses(GraphicsContext gc, double[] ellipses, double centerX, double centerY) {
+			for (int i = 0; i < ellipses.length; i += 4) {
+				gc.fillOval(centerX + ellipses[i] - ellipses[i+2], centerY + ellipses[i+1] - ellipses[i+3], ellipses[i+2] * 2, ellipses[i+3] * 2);
+			}
+		}
+	}
+	
+	/**
+	 * ThumbnailKey
+	 * Everything a side panel thumbnail depends on
+	 */
+	private static final class ThumbnailKey {
+		private final int colorOne;
+		private final int colorTwo;
+		private final double sizeX;
+		private final double sizeY;
+		
+		public ThumbnailKey(int colorOne, int colorTwo, double sizeX, double sizeY) {
+			this.colorOne = colorOne;
+			this.colorTwo = colorTwo;
+			this.sizeX = sizeX;
+			this.sizeY = sizeY;
+		}
+		
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof ThumbnailKey)) {
+				return false;
+			}
+			ThumbnailKey k = (ThumbnailKey) o;
+			return colorOne == k.colorOne && colorTwo == k.colorTwo
+					&& Double.compare(sizeX, k.sizeX) == 0 && Double.compare(sizeY, k.sizeY) == 0;
+		}
+		
+		@Override
+		public int hashCode() {
+			return Objects.hash(colorOne, colorTwo, sizeX, sizeY);
+		}
+	}
+	
+	/**
+	 * KittyThumbnailAtlas
+	 * Side panel thumbnails are painted once into fixed size slots of one shared image, rows show
+	 * them through an ImageView viewport. When every slot is taken the least recently used thumbnail
+	 * that no row is showing is evicted, so the atlas (and its texture) never outgrows the budget.
+	 */
+	private class KittyThumbnailAtlas {
+		private static final double SCALE = 0.5;
+		private static final KittyTemplate TEMPLATE = KittyTemplate.of(SCALE, SCALE);
+		private static final int SLOT_WIDTH = (int) Math.ceil(TEMPLATE.getMaxX() - TEMPLATE.getMinX());
+		private static final int SLOT_HEIGHT = (int) Math.ceil(TEMPLATE.getMaxY() - TEMPLATE.getMinY());
+		private static final int COLUMNS = 16;
+		// enough slots for every row that can be on screen at once
+		private static final int MIN_SLOTS = 64;
+		private WritableImage atlas;
+		private int capacity;
+		// thumbnail -> slot, iterated least recently used first
+		private LinkedHashMap<ThumbnailKey, Integer> slots = new LinkedHashMap<ThumbnailKey, Integer>(16, 0.75f, true);
+		// rows currently showing a thumbnail
+		private HashMap<ThumbnailKey, Integer> users = new HashMap<ThumbnailKey, Integer>();
+		// scratch surface each thumbnail is painted onto before being copied into its slot
+		private Canvas scratch = new Canvas(SLOT_WIDTH, SLOT_HEIGHT);
+		private WritableImage scratchImage = new WritableImage(SLOT_WIDTH, SLOT_HEIGHT);
+		private SnapshotParameters snapshotParams = new SnapshotParameters();
+		
+		/**
+		 * KittyThumbnailAtlas
+		 * Class Constructor
+		 * @param budget long - memory budget in bytes
+		 */
+		public KittyThumbnailAtlas(long budget) {
+			capacity = (int) Math.max(MIN_SLOTS, budget / (SLOT_WIDTH * SLOT_HEIGHT * 4L));
+			capacity = (capacity + COLUMNS - 1) / COLUMNS * COLUMNS;
+			atlas = new WritableImage(SLOT_WIDTH * COLUMNS, SLOT_HEIGHT * (capacity / COLUMNS));
+			snapshotParams.setFill(Color.TRANSPARENT);
+		}
+		
+		public WritableImage getImage() {
+			return atlas;
+		}
+		
+		/**
+		 * Get the atlas region holding a thumbnail, painting it on a miss
+		 * The caller must release the key once it stops showing the thumbnail.
+		 * @param key ThumbnailKey - thumbnail to show
+		 * @return Rectangle2D - viewport into the atlas image
+		 */
+		public Rectangle2D acquire(ThumbnailKey key) {
+			users.merge(key, 1, Integer::sum);
+			Integer slot = slots.get(key);
+			if (slot == null) {
+				slot = (slots.size() < capacity) ? slots.size() : evict();
+				slots.put(key, slot);
+				paint(key, slot);
+			}
+			return new Rectangle2D((slot % COLUMNS) * SLOT_WIDTH, (slot / COLUMNS) * SLOT_HEIGHT, SLOT_WIDTH, SLOT_HEIGHT);
+		}
+		
+		public void release(ThumbnailKey key) {
+			users.computeIfPresent(key, (k, n) -> (n > 1) ? n - 1 : null);
+		}
+		
+		/**
+		 * Drop the least recently used thumbnail that is not on screen
+		 * @return int - the freed slot
+		 */
+		private int evict() {
+			Iterator<Map.Entry<ThumbnailKey, Integer>> it = slots.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<ThumbnailKey, Integer> eldest = it.next();
+				if (!users.containsKey(eldest.getKey())) {
+					it.remove();
+					return eldest.getValue();
+				}
+			}
+			throw new IllegalStateException("Every thumbnail slot is on screen");
+		}
+		
+		private void paint(ThumbnailKey key, int slot) {
+			GraphicsContext gc = scratch.getGraphicsContext2D();
+			gc.clearRect(0, 0, SLOT_WIDTH, SLOT_HEIGHT);
+			gc.setStroke(Color.BLACK);
+			kittyPainter.paintKitty(gc, Kitty.toColor(key.colorOne), Kitty.toColor(key.colorTwo), -TEMPLATE.getMinX(), -TEMPLATE.getMinY(), SCALE, SCALE, KittyDetail.FULL);
+			scratch.snapshot(snapshotParams, scratchImage);
+			atlas.getPixelWriter().setPixels((slot % COLUMNS) * SLOT_WIDTH, (slot / COLUMNS) * SLOT_HEIGHT,
+					SLOT_WIDTH, SLOT_HEIGHT, scratchImage.getPixelReader(), 0, 0);
+		}
+	}
+	
+	/**
+	 * KittyCell
+	 * A reusable row of the current kitties side panel, rebound to a new kitty id as the list scrolls.
+	 */
+	private class KittyCell extends ListCell<Integer> {
+		private static final double HEIGHT = 85;
+		private ImageView thumbnail = new ImageView();
+		private ThumbnailKey thumbnailKey;
+		private CheckBox visible = new CheckBox("visible");
+		private Button delete = new Button("delete");
+		private KittyRowHandler handler = new KittyRowHandler(visible, delete);
+		private EventRecorder dispatcher = new EventRecorder(handler);
+		private HBox info;
+		
+		/**
+		 * KittyCell
+		 * Class Constructor
+		 */
+		public KittyCell() {
+			visible.setId(ROW_VISIBLE);
+			visible.getStyleClass().add("kitty-visible");
+			visible.setOnAction(dispatcher);
+			delete.setId(ROW_DELETE);
+			delete.getStyleClass().add("kitty-delete");
+			delete.setOnAction(dispatcher);
+			info = new HBox(30, thumbnail, visible, delete);
+			info.getStyleClass().add("kitty-row");
+			getStyleClass().add("kitty-cell");
+		}
+		
+		@Override
+		protected void updateItem(Integer id, boolean empty) {
+			Integer previous = getItem();
+			if (previous != null) {
+				kittyControls.unbind(previous, this);
+			}
+			if (thumbnailKey != null) {
+				thumbnails.release(thumbnailKey);
+				thumbnailKey = null;
+			}
+			super.updateItem(id, empty);
+			setText(null);
+			synchronized (model) {
+				if (empty || id == null || !kittyStore.contains(id)) {
+					handler.bind(-1);
+					setGraphic(null);
+					return;
+				}
+				int i = kittyStore.indexOf(id);
+				visible.setSelected(kittyStore.isVisible(i));
+				thumbnailKey = new ThumbnailKey(kittyStore.getMainColor(i), kittyStore.getEyeColor(i), kittyStore.getScaleX(i), kittyStore.getScaleY(i));
+			}
+			kittyControls.bind(id, this);
+			handler.bind(id);
+			thumbnail.setImage(thumbnails.getImage());
+			thumbnail.setViewport(thumbnails.acquire(thumbnailKey));
+			setGraphic(info);
+		}
+	}
+	
+	/**
+	 * KittyItems
+	 * The side panel's list of kitty ids, kept in the store's order by replaying the model's changes on it:
+	 * removals swap the last id into the gap like the store does, additions go on the end. Ids are kept
+	 * unboxed, so large populations cost no boxed ids until rows show them.
+	 */
+	private class KittyItems extends ObservableListBase<Integer> {
+		// above this many removals in one batch the whole list is announced as replaced
+		private static final int MAX_SINGLE_REMOVALS = 64;
+		private int[] ids = new int[16];
+		private int size;
+		// index of each id in the list, by id
+		private int[] positions = new int[16];
+		
+		@Override
+		public Integer get(int index) {
+			if (index < 0 || index >= size) {
+				throw new IndexOutOfBoundsException(index);
+			}
+			return ids[index];
+		}
+		
+		@Override
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * Apply a batch of the model's changes, removals first
+		 * @param removed int[] - ids of removed kitties
+		 * @param added int[] - ids of new kitties, in the order they were added
+		 */
+		public void update(int[] removed, int[] added) {
+			if (removed.length == 0 && added.length == 0) {
+				return;
+			}
+			KittyEvents.PanelRebuild event = new KittyEvents.PanelRebuild();
+			event.begin();
+			beginChange();
+			if (removed.length > MAX_SINGLE_REMOVALS) {
+				int[] before = Arrays.copyOf(ids, size);
+				for (int id : removed) {
+					swapRemove(id);
+				}
+				for (int id : added) {
+					append(id);
+				}
+				nextReplace(0, size, new AbstractList<Integer>() {
+					@Override
+					public Integer get(int index) {
+						return before[index];
+					}
+					
+					@Override
+					public int size() {
+						return before.length;
+					}
+				});
+				endChange();
+				committed(event, "replaced", removed.length + added.length);
+				return;
+			}
+			for (int id : removed) {
+				int index = positions[id];
+				int last = size - 1;
+				swapRemove(id);
+				if (index != last) {
+					nextSet(index, id);
+					nextRemove(last, ids[index]);
+				} else {
+					nextRemove(index, id);
+				}
+			}
+			int from = size;
+			for (int id : added) {
+				append(id);
+			}
+			if (from < size) {
+				nextAdd(from, size);
+			}
+			endChange();
+			committed(event, (removed.length == 0) ? "added" : (added.length == 0) ? "removed" : "changed", removed.length + added.length);
+		}
+		
+		private void swapRemove(int id) {
+			int index = positions[id];
+			int moved = ids[--size];
+			ids[index] = moved;
+			positions[moved] = index;
+		}
+		
+		private void append(int id) {
+			if (size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			if (id >= positions.length) {
+				positions = Arrays.copyOf(positions, Math.max(id + 1, positions.length * 2));
+			}
+			positions[id] = size;
+			ids[size++] = id;
+		}
+		
+		private void committed(KittyEvents.PanelRebuild event, String reason, int rows) {
+			event.reason = reason;
+			event.rows = rows;
+			event.commit();
+			metrics.panelRebuilt();
+		}
+	}
+	
+	/**
+	 * Background
+	 * Used to create background group of shapes
+	 */
+	static class Background extends Group{
+		private Rectangle backdrop;
+		private Ellipse moon;
+		private Polygon pyramidLeft;
+		private Polygon pyramidRight;
+		private Color night = Color.rgb(0, 20, 64);
+		private Color day = Color.rgb(173, 213, 247);
+		 
+		/**
+		 * Class Constructor
+		 * @param px double - Y-intersect of the top triangle points
+		 * @param py double - X-intercept of the top triangle points
+		 */
+		public Background(double px, double py) {
+			backdrop = new Rectangle((double)WIDTH, (double)HEIGHT);
+			backdrop.setFill(night);
+			backdrop.setY(0);
+			backdrop.setX(0);
+			
+			moon = new Ellipse((double)WIDTH-250, 250.00, 125.00, 125.00);
+			moon.setFill(Color.ORANGE);
+			
+			pyramidLeft = new Polygon();
+			pyramidLeft.setStroke(Color.rgb(172, 96, 24));
+			pyramidLeft.setStrokeWidth(2);
+			pyramidLeft.setFill(Color.rgb(210, 128, 49));
+			pyramidLeft.getPoints().addAll(new Double[] {
+					px, py,
+					px+75, (double)HEIGHT,
+					px-400, (double)HEIGHT,
+			});
+			
+			pyramidRight = new Polygon();
+			pyramidRight.setStroke(Color.rgb(172, 96, 24));
+			pyramidRight.setStrokeWidth(2);
+			pyramidRight.setFill(Color.rgb(233, 158, 87));
+			pyramidRight.getPoints().addAll(new Double[] {
+					px, py,
+					px+75, (double)HEIGHT,
+					px+400, (double)HEIGHT,
+			});
+			
+			getChildren().addAll(backdrop, moon, pyramidLeft, pyramidRight);
+		}
+		public void setNight(boolean x) {
+			if (x == true) {
+				backdrop.setFill(night);
+			} else {
+				backdrop.setFill(day);
+			}
+		}
+		
+		public void setMoonVisible(boolean x) {
+			moon.setVisible(x);
+		}
+		
+		public void setPyramidVisible(boolean x) {
+			pyramidLeft.setVisible(x);
+			pyramidRight.setVisible(x);
+		}
+		
+		public boolean isNight() {
+			return (backdrop.getFill() == night) ? true : false;
+		}
+	}
+	
+	/**
+	 * Ground
+	 * Used to create a foreground
+	 */
+	static class Ground extends Group {
+		private Polygon groundLeft;
+		private Polygon groundRight;
+		private final double heightLeft = 600.00;
+		private final double heightRight = 500.00;
+		
+		/**
+		 * Ground
+		 * Class Constructor
+		 */
+		public Ground() {
+			groundLeft = new Polygon();
+			groundLeft.setFill(Color.rgb(255, 243, 222));
+			groundLeft.getPoints().addAll(new Double[] {
+					0.00, heightLeft,
+					0.00, (double)HEIGHT,
+					400.00, (double)HEIGHT,
+			});
+
+			groundRight = new Polygon();
+			groundRight.setFill(Color.rgb(255, 243, 222));
+			groundRight.getPoints().addAll(new Double[] {
+					00.00, (double)HEIGHT,
+					(double)WIDTH, heightRight,
+					(double)WIDTH, (double)HEIGHT,
+			});
+			
+			getChildren().addAll(groundLeft, groundRight);
+		}
+		
+		public double getHeight() {
+			return (this.heightLeft > this.heightRight) ? this.heightRight : this.heightLeft;
+		}
+		
+		/**
+		 * Top of the ground at a given X, where the higher of the two slopes is
+		 * @param x double - X position
+		 * @return double - Y of the ground's top edge
+		 */
+		public double getSurfaceY(double x) {
+			double right = HEIGHT - (HEIGHT - heightRight) * x / WIDTH;
+			if (x >= 400) {
+				return right;
+			}
+			return Math.min(right, heightLeft + (HEIGHT - heightLeft) * x / 400);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package kittymaker;
+
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.SVGPath;
+
+/**
+ * Kitty
+ * Used to create foreground objects
+ * The outline comes from the shared KittyTemplate for the kitty's scale, so a kitty is only three
+ * path nodes (fur, eyes, pupils) placed with a translation. The path strings are shared, but each
+ * node still parses its own when its geometry is first needed.
+ *
+ */
+public class Kitty extends Group {
+	private KittyTemplate template;
+	private SVGPath fur = new SVGPath();
+	private SVGPath eyes = new SVGPath();
+	private SVGPath pupils = new SVGPath();
+
+	/**
+	 * Kitty
+	 * Class Constructor
+	 * @param mainColor Color - main color
+	 * @param eyeColor Color - eye color
+	 * @param centerX double - center X position for the kitty
+	 * @param centerY double - center Y position for the kitty
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 */
+	public Kitty(Color mainColor, Color eyeColor, double centerX, double centerY, double scaleX, double scaleY) {
+		template = KittyTemplate.of(scaleX, scaleY);
+		fur.setContent(template.getFurPath());
+		eyes.setContent(template.getEyePath());
+		pupils.setContent(template.getPupilPath());
+		pupils.setFill(null);
+		pupils.setStroke(Color.BLACK);
+		pupils.setStrokeWidth(template.getPupilWidth());
+		setColors(mainColor, eyeColor);
+		moveTo(centerX, centerY);
+		getChildren().addAll(fur, eyes, pupils);
+	}
+
+	/**
+	 * Convert a packed ARGB int, as kept in the KittyStore, to a Color
+	 * @param argb int - packed color
+	 * @return Color
+	 */
+	public static Color toColor(int argb) {
+		return Color.rgb((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff, ((argb >>> 24) & 0xff) / 255.0);
+	}
+
+	/**
+	 * Recolour the kitty without rebuilding its geometry
+	 * @param mainColor Color - main color
+	 * @param eyeColor Color - eye color
+	 */
+	public void setColors(Color mainColor, Color eyeColor) {
+		fur.setFill(mainColor);
+		eyes.setFill(eyeColor);
+	}
+
+	/**
+	 * Draw fewer parts, for when frames are running over budget
+	 * @param detail KittyDetail - detail level
+	 */
+	public void setDetail(KittyDetail detail) {
+		fur.setContent(template.getFurPath(detail));
+		pupils.setVisible(detail.showsPupils());
+	}
+
+	/**
+	 * Move the kitty's center
+	 * @param centerX double - center X position
+	 * @param centerY double - center Y position
+	 */
+	public void moveTo(double centerX, double centerY) {
+		setTranslateX(centerX);
+		setTranslateY(centerY);
+	}
+
+	/**
+	 * Returns a mini duplicate of the caller's kitty (used for UI)
+	 * @return Kitty 
+	 */
+	public Kitty getCopyUI() {
+		Paint mainColor = fur.getFill();
+		Paint eyeColor = eyes.getFill();
+		return new Kitty((Color) mainColor, (Color) eyeColor, getX(), getY(), 0.5, 0.5);
+	}
+
+	/**
+	 * Gets the X center pos
+	 * @return double X
+	 */
+	public double getX() {
+		return getTranslateX();
+	}
+
+	/**
+	 * Gets the Y center pos
+	 * @return double Y
+	 */
+	public double getY() {
+		return getTranslateY();
+	}
+}
@@ -0,0 +1,138 @@
+package kittymaker;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * KittyBatch
+ * New kitties generated away from the JavaFX application thread: colors, positions and scales. Plain data
+ * with no JavaFX in it, so it can be added to a KittySceneModel from any thread; views build their own
+ * nodes for it. The batch is filled in chunks on the common fork/join pool, each chunk with its own split
+ * of the random stream, and handed back whole so it can be committed in one go.
+ * Scales are picked from the four kinds of kitty the creator makes, 1 or 2 along each axis.
+ * Batches can also be allocated empty and filled in, as scene files are loaded.
+ */
+public class KittyBatch {
+	// kitties generated per task
+	private static final int CHUNK = 4096;
+	private final int size;
+	private final double[] posX;
+	private final double[] posY;
+	private final double[] scaleX;
+	private final double[] scaleY;
+	private final int[] mainColor;
+	private final int[] eyeColor;
+	private final boolean[] visible;
+
+	private KittyBatch(int size) {
+		this.size = size;
+		posX = new double[size];
+		posY = new double[size];
+		scaleX = new double[size];
+		scaleY = new double[size];
+		mainColor = new int[size];
+		eyeColor = new int[size];
+		visible = new boolean[size];
+	}
+
+	/**
+	 * An empty batch to be filled in with set()
+	 * @param size int - number of kitties
+	 * @return KittyBatch
+	 */
+	public static KittyBatch allocate(int size) {
+		return new KittyBatch(size);
+	}
+
+	/**
+	 * Fill in one kitty
+	 * @param i int - index in the batch
+	 * @param x double - center X
+	 * @param y double - center Y
+	 * @param sx double - horizontal scale
+	 * @param sy double - vertical scale
+	 * @param main int - packed ARGB main color
+	 * @param eye int - packed ARGB eye color
+	 * @param shown boolean - visibility
+	 */
+	public void set(int i, double x, double y, double sx, double sy, int main, int eye, boolean shown) {
+		posX[i] = x;
+		posY[i] = y;
+		scaleX[i] = sx;
+		scaleY[i] = sy;
+		mainColor[i] = main;
+		eyeColor[i] = eye;
+		visible[i] = shown;
+	}
+
+	/**
+	 * Generate a batch on the common pool
+	 * @param count int - number of kitties
+	 * @param minX double - smallest center X
+	 * @param minY double - smallest center Y
+	 * @param maxX double - largest center X
+	 * @param maxY double - largest center Y
+	 * @param seed long - random seed
+	 * @return CompletableFuture - completes with the batch once every chunk is done
+	 */
+	public static CompletableFuture<KittyBatch> generate(int count, double minX, double minY, double maxX, double maxY, long seed) {
+		KittyBatch batch = new KittyBatch(Math.max(0, count));
+		SplittableRandom random = new SplittableRandom(seed);
+		CompletableFuture<?>[] chunks = new CompletableFuture<?>[(batch.size + CHUNK - 1) / CHUNK];
+		for (int c = 0; c < chunks.length; c++) {
+			int from = c * CHUNK;
+			int to = Math.min(batch.size, from + CHUNK);
+			SplittableRandom chunkRandom = random.split();
+			chunks[c] = CompletableFuture.runAsync(() -> batch.fill(from, to, minX, minY, maxX, maxY, chunkRandom));
+		}
+		return CompletableFuture.allOf(chunks).thenApply(done -> batch);
+	}
+
+	private void fill(int from, int to, double minX, double minY, double maxX, double maxY, SplittableRandom random) {
+		for (int i = from; i < to; i++) {
+			posX[i] = minX + random.nextDouble() * (maxX - minX);
+			posY[i] = minY + random.nextDouble() * (maxY - minY);
+			scaleX[i] = 1 + random.nextInt(2);
+			scaleY[i] = 1 + random.nextInt(2);
+			mainColor[i] = randomARGB(random);
+			eyeColor[i] = randomARGB(random);
+			visible[i] = true;
+		}
+	}
+
+	private static int randomARGB(SplittableRandom random) {
+		return KittyStore.argb(1 + random.nextInt(255), 1 + random.nextInt(255), 1 + random.nextInt(255));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getX(int i) {
+		return posX[i];
+	}
+
+	public double getY(int i) {
+		return posY[i];
+	}
+
+	public double getScaleX(int i) {
+		return scaleX[i];
+	}
+
+	public double getScaleY(int i) {
+		return scaleY[i];
+	}
+
+	public int getMainColor(int i) {
+		return mainColor[i];
+	}
+
+	public int getEyeColor(int i) {
+		return eyeColor[i];
+	}
+
+	public boolean isVisible(int i) {
+		return visible[i];
+	}
+}
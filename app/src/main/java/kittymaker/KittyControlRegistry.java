@@ -0,0 +1,45 @@
+package kittymaker;
+
+import java.util.HashMap;
+
+/**
+ * KittyControlRegistry
+ * Side panel rows keyed by the id of the kitty they currently show. A row is only registered while
+ * it is bound to a live kitty, deleting the kitty releases it so no controls outlive their kitty.
+ * @param <T> the row type
+ */
+class KittyControlRegistry<T> {
+	private HashMap<Integer, T> rows = new HashMap<Integer, T>();
+	
+	public void bind(int id, T row) {
+		rows.put(id, row);
+	}
+	
+	/**
+	 * Unbind a row, ignored if the id has since been bound to another row
+	 * @param id int - kitty id
+	 * @param row T - row being rebound
+	 */
+	public void unbind(int id, T row) {
+		rows.remove(id, row);
+	}
+	
+	public void release(int id) {
+		rows.remove(id);
+	}
+	
+	public T get(int id) {
+		return rows.get(id);
+	}
+	
+	/**
+	 * @return int - rows registered
+	 */
+	public int size() {
+		return rows.size();
+	}
+	
+	public void clear() {
+		rows.clear();
+	}
+}
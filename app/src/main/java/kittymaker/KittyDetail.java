@@ -0,0 +1,30 @@
+package kittymaker;
+
+/**
+ * KittyDetail
+ * How much of each kitty is drawn, from everything down to the bare body, in the order parts are given up
+ * when frames run over budget. The last level also skips every other animation tick.
+ */
+public enum KittyDetail {
+	FULL,
+	NO_PUPILS,
+	NO_EARS,
+	NO_PAWS,
+	SKIP_TICKS;
+
+	public boolean showsPupils() {
+		return this == FULL;
+	}
+
+	public boolean showsEars() {
+		return compareTo(NO_EARS) < 0;
+	}
+
+	public boolean showsPaws() {
+		return compareTo(NO_PAWS) < 0;
+	}
+
+	public boolean skipsTicks() {
+		return this == SKIP_TICKS;
+	}
+}
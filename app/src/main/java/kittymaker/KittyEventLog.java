@@ -0,0 +1,122 @@
+package kittymaker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * KittyEventLog
+ * A recorded session: the action events fired by the kitty creator, background controls and side panel rows, in
+ * order, with the random seed the scene was started with. Replaying the events against a scene started with the
+ * same seed and parameters rebuilds the same scene.
+ * Controls are named by their node id, the spawn button also keeps the spawn count that was typed in. Every row
+ * shares its controls' ids, so row events keep the kitty id, and for visibility whether it is now shown, as text.
+ *
+ * Saved as text, a "# kitty events seed=N" line followed by one "nanos TAB id TAB text" line per event,
+ * nanos being the time since recording started.
+ */
+public class KittyEventLog {
+	private static final String HEADER = "# kitty events seed=";
+	private final long seed;
+	private final ArrayList<Long> times = new ArrayList<Long>();
+	private final ArrayList<String> sources = new ArrayList<String>();
+	private final ArrayList<String> texts = new ArrayList<String>();
+
+	/**
+	 * KittyEventLog
+	 * Class Constructor
+	 * @param seed long - random seed of the recorded scene
+	 */
+	public KittyEventLog(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Add an event to the end
+	 * @param nanos long - time since recording started
+	 * @param source String - id of the control that fired it
+	 * @param text String - text that went with it, empty if none
+	 */
+	public void add(long nanos, String source, String text) {
+		times.add(nanos);
+		sources.add(source);
+		texts.add(text);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public int size() {
+		return sources.size();
+	}
+
+	public long getTime(int i) {
+		return times.get(i);
+	}
+
+	public String getSource(int i) {
+		return sources.get(i);
+	}
+
+	public String getText(int i) {
+		return texts.get(i);
+	}
+
+	/**
+	 * Save the log, replacing the file
+	 * @param path Path - file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			out.write(HEADER + seed);
+			out.newLine();
+			for (int i = 0; i < size(); i++) {
+				out.write(times.get(i) + "\t" + sources.get(i) + "\t" + texts.get(i));
+				out.newLine();
+			}
+		}
+	}
+
+	/**
+	 * Load a saved log
+	 * @param path Path - file to read
+	 * @return KittyEventLog
+	 * @throws IOException if the file cannot be read or is not an event log
+	 */
+	public static KittyEventLog read(Path path) throws IOException {
+		try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String header = in.readLine();
+			if (header == null || !header.startsWith(HEADER)) {
+				throw new IOException(path + " is not a kitty event log");
+			}
+			KittyEventLog log;
+			try {
+				log = new KittyEventLog(Long.parseLong(header.substring(HEADER.length()).trim()));
+			} catch (NumberFormatException e) {
+				throw new IOException(path + " has an invalid seed", e);
+			}
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] fields = line.split("\t", 3);
+				if (fields.length < 2) {
+					throw new IOException(path + " has an invalid event: " + line);
+				}
+				try {
+					log.add(Long.parseLong(fields[0]), fields[1], (fields.length > 2) ? fields[2] : "");
+				} catch (NumberFormatException e) {
+					throw new IOException(path + " has an invalid event: " + line, e);
+				}
+			}
+			return log;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package kittymaker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * KittyEvents
+ * Flight recorder events for the hot paths, all under the "Kitty Maker" category. They cost next to nothing
+ * unless a recording is running, e.g. java -XX:StartFlightRecording=filename=kitty.jfr.
+ * Usage: create, begin(), do the work, set the fields, commit().
+ */
+public final class KittyEvents {
+	private KittyEvents() {
+	}
+
+	@Name("kittymaker.KittyConstruction")
+	@Label("Kitty Construction")
+	@Category("Kitty Maker")
+	@Description("Kitties added to the store, the image and the side panel, one at a time or as a batch")
+	@StackTrace(false)
+	public static final class Construction extends Event {
+		@Label("Kitties")
+		public int count;
+		@Label("Scene Graph Nodes")
+		@Description("True when kitty nodes were built, false in canvas mode")
+		public boolean nodes;
+	}
+
+	@Name("kittymaker.PanelRebuild")
+	@Label("Side Panel Rebuild")
+	@Category("Kitty Maker")
+	@Description("The current kitties panel being built, or its list being told about added and removed kitties")
+	@StackTrace(false)
+	public static final class PanelRebuild extends Event {
+		@Label("Reason")
+		public String reason;
+		@Label("Rows Changed")
+		public int rows;
+	}
+
+	@Name("kittymaker.Dispatch")
+	@Label("Handler Dispatch")
+	@Category("Kitty Maker")
+	@Description("An action event handled by the kitty creator or background controls")
+	@StackTrace(false)
+	public static final class Dispatch extends Event {
+		@Label("Handler")
+		public String handler;
+		@Label("Source")
+		public String source;
+	}
+
+	@Name("kittymaker.BackgroundToggle")
+	@Label("Background Toggle")
+	@Category("Kitty Maker")
+	@Description("A background element being toggled in the model, the scenery is redrawn when the change is applied")
+	@StackTrace(false)
+	public static final class BackgroundToggle extends Event {
+		@Label("Element")
+		public String element;
+		@Label("Shown")
+		public boolean shown;
+	}
+
+	@Name("kittymaker.FeedDrain")
+	@Label("Feed Drain")
+	@Category("Kitty Maker")
+	@Description("Commands taken off the ingestion feed's queue and applied to the scene in one go")
+	@StackTrace(false)
+	public static final class FeedDrain extends Event {
+		@Label("Commands")
+		public int commands;
+		@Label("Still Queued")
+		public int queued;
+	}
+}
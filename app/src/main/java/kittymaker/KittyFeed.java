@@ -0,0 +1,364 @@
+package kittymaker;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * KittyFeed
+ * Drives a scene from outside: text commands, one per line, from a tailed file or a local socket, are parsed on
+ * reader threads into a bounded queue, and drained a limited number at a time into a KittySceneModel, e.g. once
+ * per animation pulse, so a fast producer can never hold up the thread doing the draining.
+ *
+ * When the queue is full a reader either waits (BLOCK, the default), which stops it reading so a socket's
+ * producer is held up by TCP flow control and a file simply is not read any further yet, or throws the command
+ * away and counts it as dropped (DROP), for producers that must never be held up.
+ *
+ * Commands (blank lines and lines starting with # are ignored):
+ * spawn [scaleX scaleY] - a kitty with random colors at a free spot, scales are 1 or 2 and default to 1
+ * delete ID, show ID, hide ID - by kitty id
+ * move ID X Y - move a kitty's center
+ * clear - remove every kitty
+ */
+public class KittyFeed implements Closeable {
+	public enum Overflow { BLOCK, DROP }
+	// how long a tailed file is left before looking for more, in milliseconds
+	private static final long TAIL_POLL_MILLIS = 20;
+	// how long a blocked reader waits for room before checking whether the feed was closed
+	private static final long BLOCK_POLL_MILLIS = 100;
+	private static final Pattern WORDS = Pattern.compile("\\s+");
+	private static final byte SPAWN = 1;
+	private static final byte DELETE = 2;
+	private static final byte SHOW = 3;
+	private static final byte HIDE = 4;
+	private static final byte MOVE = 5;
+	private static final byte CLEAR = 6;
+	private final ArrayBlockingQueue<Command> queue;
+	private final Overflow overflow;
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder applied = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder malformed = new LongAdder();
+	// only touched by the draining thread
+	private final ArrayList<Command> batch = new ArrayList<Command>();
+	private final CopyOnWriteArrayList<Closeable> sources = new CopyOnWriteArrayList<Closeable>();
+	private volatile boolean closed;
+
+	/**
+	 * Command
+	 * One parsed command
+	 */
+	private static final class Command {
+		private final byte op;
+		private final int id;
+		private final double x;
+		private final double y;
+
+		private Command(byte op, int id, double x, double y) {
+			this.op = op;
+			this.id = id;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	/**
+	 * KittyFeed
+	 * Class Constructor
+	 * @param capacity int - most commands waiting to be drained
+	 * @param overflow Overflow - what readers do when the queue is full
+	 */
+	public KittyFeed(int capacity, Overflow overflow) {
+		queue = new ArrayBlockingQueue<Command>(Math.max(1, capacity));
+		this.overflow = overflow;
+	}
+
+	/**
+	 * Read commands from a file as it grows, from its start, on a reader thread
+	 * A file that shrinks is taken to have been truncated and is read again from the start.
+	 * @param path Path - file to tail
+	 * @throws IOException if the file cannot be opened
+	 */
+	public void tail(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		sources.add(channel);
+		start(() -> {
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			StringBuilder line = new StringBuilder();
+			try {
+				while (!closed) {
+					if (channel.size() < channel.position()) {
+						channel.position(0);
+						line.setLength(0);
+					}
+					buffer.clear();
+					if (channel.read(buffer) <= 0) {
+						Thread.sleep(TAIL_POLL_MILLIS);
+						continue;
+					}
+					buffer.flip();
+					// commands are ASCII, a partial line is kept until the rest of it is written
+					while (buffer.hasRemaining()) {
+						char c = (char) (buffer.get() & 0xFF);
+						if (c == '\n') {
+							submit(line);
+							line.setLength(0);
+						} else if (c != '\r') {
+							line.append(c);
+						}
+					}
+				}
+			} catch (IOException | InterruptedException e) {
+				if (!closed) {
+					System.err.println("Stopped reading " + path + ": " + e);
+				}
+			}
+		}, "kitty-feed-tail");
+	}
+
+	/**
+	 * Accept producers on a local port, each connection's commands are read on a thread of its own
+	 * @param port int - port on the loopback address, 0 for any free port
+	 * @return int - the port listened on
+	 * @throws IOException if the port cannot be bound
+	 */
+	public int listen(int port) throws IOException {
+		ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		sources.add(server);
+		start(() -> {
+			try {
+				while (!closed) {
+					Socket socket = server.accept();
+					sources.add(socket);
+					start(() -> read(socket), "kitty-feed-client");
+				}
+			} catch (IOException e) {
+				if (!closed) {
+					System.err.println("Stopped listening on port " + server.getLocalPort() + ": " + e);
+				}
+			}
+		}, "kitty-feed-listen");
+		return server.getLocalPort();
+	}
+
+	private void read(Socket socket) {
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))) {
+			String line;
+			while (!closed && (line = in.readLine()) != null) {
+				submit(line);
+			}
+		} catch (IOException | InterruptedException e) {
+			if (!closed) {
+				System.err.println("Feed connection dropped: " + e);
+			}
+		} finally {
+			sources.remove(socket);
+		}
+	}
+
+	private void start(Runnable reader, String name) {
+		Thread thread = new Thread(reader, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Parse a command and queue it, waiting for room or dropping it as the overflow policy says
+	 * @param line CharSequence - one command
+	 * @return boolean - true if it was queued, false if it was dropped, malformed or blank
+	 * @throws InterruptedException if interrupted while waiting for room
+	 */
+	public boolean submit(CharSequence line) throws InterruptedException {
+		Command command = parse(line);
+		if (command == null) {
+			return false;
+		}
+		if (overflow == Overflow.BLOCK) {
+			while (!queue.offer(command, BLOCK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+				if (closed) {
+					return false;
+				}
+			}
+		} else if (!queue.offer(command)) {
+			dropped.increment();
+			return false;
+		}
+		accepted.increment();
+		return true;
+	}
+
+	/**
+	 * @return Command - null for blank lines, comments and malformed commands (which are counted)
+	 */
+	private Command parse(CharSequence line) {
+		String[] words = WORDS.split(line.toString().trim());
+		if (words[0].isEmpty() || words[0].startsWith("#")) {
+			return null;
+		}
+		try {
+			switch (words[0]) {
+			case "spawn":
+				if (words.length == 1) {
+					return new Command(SPAWN, -1, 1, 1);
+				} else if (words.length == 3) {
+					double scaleX = Double.parseDouble(words[1]);
+					double scaleY = Double.parseDouble(words[2]);
+					// only the creator's four kinds of kitty, templates are cached per scale
+					if ((scaleX == 1 || scaleX == 2) && (scaleY == 1 || scaleY == 2)) {
+						return new Command(SPAWN, -1, scaleX, scaleY);
+					}
+				}
+				break;
+			case "delete":
+			case "show":
+			case "hide":
+				if (words.length == 2) {
+					byte op = words[0].equals("delete") ? DELETE : words[0].equals("show") ? SHOW : HIDE;
+					return new Command(op, Integer.parseInt(words[1]), 0, 0);
+				}
+				break;
+			case "move":
+				if (words.length == 4) {
+					return new Command(MOVE, Integer.parseInt(words[1]), Double.parseDouble(words[2]), Double.parseDouble(words[3]));
+				}
+				break;
+			case "clear":
+				if (words.length == 1) {
+					return new Command(CLEAR, -1, 0, 0);
+				}
+				break;
+			default:
+				break;
+			}
+		} catch (NumberFormatException e) {
+			// counted below
+		}
+		malformed.increment();
+		return null;
+	}
+
+	/**
+	 * Apply up to budget queued commands to a model in one go, so its listeners see them as one change
+	 * Only one thread may drain a feed.
+	 * @param model KittySceneModel - scene to change
+	 * @param budget int - most commands to apply
+	 * @return int - commands applied
+	 */
+	public int drain(KittySceneModel model, int budget) {
+		if (queue.isEmpty()) {
+			return 0;
+		}
+		KittyEvents.FeedDrain event = new KittyEvents.FeedDrain();
+		event.begin();
+		batch.clear();
+		queue.drainTo(batch, budget);
+		synchronized (model) {
+			for (Command c : batch) {
+				switch (c.op) {
+				case SPAWN:
+					model.create(c.x, c.y);
+					break;
+				case DELETE:
+					model.remove(c.id);
+					break;
+				case SHOW:
+					model.setVisible(c.id, true);
+					break;
+				case HIDE:
+					model.setVisible(c.id, false);
+					break;
+				case MOVE:
+					model.move(c.id, Math.min(model.getWorldWidth(), Math.max(0, c.x)), Math.min(model.getWorldHeight(), Math.max(0, c.y)));
+					break;
+				case CLEAR:
+					model.clear();
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		int count = batch.size();
+		batch.clear();
+		applied.add(count);
+		event.commands = count;
+		event.queued = queue.size();
+		event.commit();
+		return count;
+	}
+
+	/**
+	 * @return int - commands waiting to be drained
+	 */
+	public int getQueueDepth() {
+		return queue.size();
+	}
+
+	public int getCapacity() {
+		return queue.size() + queue.remainingCapacity();
+	}
+
+	public Overflow getOverflow() {
+		return overflow;
+	}
+
+	/**
+	 * @return long - commands queued so far
+	 */
+	public long getAccepted() {
+		return accepted.sum();
+	}
+
+	/**
+	 * @return long - commands drained into the model so far
+	 */
+	public long getApplied() {
+		return applied.sum();
+	}
+
+	/**
+	 * @return long - commands thrown away because the queue was full
+	 */
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return long - lines that were not a command
+	 */
+	public long getMalformed() {
+		return malformed.sum();
+	}
+
+	/**
+	 * Stop reading, closing the tailed files, the listening socket and every connection
+	 * Commands already queued can still be drained.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		for (Closeable source : sources) {
+			try {
+				source.close();
+			} catch (IOException e) {
+				System.err.println("Could not close feed source: " + e);
+			}
+		}
+		sources.clear();
+	}
+}
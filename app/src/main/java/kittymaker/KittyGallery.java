@@ -0,0 +1,130 @@
+package kittymaker;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Kitty Gallery
+ * Renders preview images of random scenes in bulk, with no display or Stage: every seed's scene is drawn once
+ * with each combination of the night, moon and pyramid background toggles. A seed fixes the number of kitties
+ * (up to --kitties=N, default 200), their kinds, colors and spots, so a seed list always gives the same gallery.
+ * Kitties may overlap, as with --spacing=0, so every scene gets the number it asks for. The scenery is the
+ * application's own Background and Ground shapes, so javafx-graphics must be on the class path and building them
+ * starts the JavaFX renderer thread (in software unless prism.order says otherwise), though nothing is shown
+ * with it. The kitties and scenery are drawn by KittyPoster, each image on one thread and the seeds spread over
+ * every core.
+ *
+ * Usage: KittyGallery [--seeds=FILE | --count=N --first-seed=N] [--out=DIR] [--kitties=N] [--width=N --height=N]
+ * A seed file has one seed per line, blank lines and lines starting with # are skipped. Without one, --count seeds
+ * (default 100) are used counting up from --first-seed (default 1). Images are written to --out (default gallery)
+ * as SEED-night-moon-pyramid.png, naming the toggles that are on (day when it is not night), 1200x800 unless
+ * --width and --height say otherwise. The number of images, the time taken and images per second are printed.
+ */
+public class KittyGallery {
+	// every combination of the NIGHT, MOON and PYRAMID bits
+	private static final int BACKGROUNDS = 8;
+
+	public static void main(String[] args) throws IOException {
+		// building shapes starts the JavaFX renderer thread, shapes that are never shown only need it in software
+		if (System.getProperty("prism.order") == null) {
+			System.setProperty("prism.order", "sw");
+		}
+		Map<String, String> params = new HashMap<String, String>();
+		for (String arg : args) {
+			if (arg.startsWith("--")) {
+				int equals = arg.indexOf('=');
+				params.put(arg.substring(2, (equals < 0) ? arg.length() : equals), (equals < 0) ? "" : arg.substring(equals + 1));
+			}
+		}
+		long[] seeds;
+		if (params.containsKey("seeds")) {
+			seeds = readSeeds(Paths.get(params.get("seeds")));
+		} else {
+			long first = Long.parseLong(params.getOrDefault("first-seed", "1"));
+			seeds = IntStream.range(0, Integer.parseInt(params.getOrDefault("count", "100"))).mapToLong(i -> first + i).toArray();
+		}
+		Path out = Paths.get(params.getOrDefault("out", "gallery"));
+		int maxKitties = Math.max(0, Integer.parseInt(params.getOrDefault("kitties", "200")));
+		int width = Math.max(1, Integer.parseInt(params.getOrDefault("width", String.valueOf(GeometricScene.WIDTH))));
+		int height = Math.max(1, Integer.parseInt(params.getOrDefault("height", String.valueOf(GeometricScene.HEIGHT))));
+		Files.createDirectories(out);
+		AtomicInteger written = new AtomicInteger();
+		AtomicInteger failed = new AtomicInteger();
+		long start = System.nanoTime();
+		IntStream.range(0, seeds.length).parallel().forEach(i -> {
+			KittySceneModel model = scene(seeds[i], maxKitties);
+			for (int flags = 0; flags < BACKGROUNDS; flags++) {
+				Path file = out.resolve(name(seeds[i], flags));
+				try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+					poster(model, flags).render(stream, width, height);
+					written.incrementAndGet();
+				} catch (IOException | RuntimeException e) {
+					failed.incrementAndGet();
+					System.err.println("Could not render " + file + ": " + e);
+				}
+			}
+		});
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.println(String.format(Locale.ROOT, "Rendered %d images (%d failed) in %.1f s, %.1f images/sec on %d cores",
+				written.get(), failed.get(), seconds, written.get() / seconds, Runtime.getRuntime().availableProcessors()));
+	}
+
+	/**
+	 * Build a seed's scene: a random number of kitties of random kinds at random spots, overlapping
+	 * @param seed long - scene seed
+	 * @param maxKitties int - most kitties
+	 * @return KittySceneModel - the scene, with no history kept
+	 */
+	static KittySceneModel scene(long seed, int maxKitties) {
+		GeometricScene.Ground ground = new GeometricScene.Ground();
+		SplittableRandom random = new SplittableRandom(seed);
+		KittySceneModel model = new KittySceneModel(GeometricScene.WIDTH, GeometricScene.HEIGHT, ground.getHeight(),
+				ground::getSurfaceY, 0, Math.max(1, maxKitties), seed);
+		model.getHistory().setBudget(0);
+		int kitties = random.nextInt(maxKitties + 1);
+		for (int k = 0; k < kitties; k++) {
+			model.create(1 + random.nextInt(2), 1 + random.nextInt(2));
+		}
+		return model;
+	}
+
+	/**
+	 * A poster of a scene over the background with the toggles given, and the ground
+	 * @param model KittySceneModel - scene
+	 * @param flags int - KittySceneFile NIGHT, MOON and PYRAMID bits
+	 * @return KittyPoster
+	 */
+	static KittyPoster poster(KittySceneModel model, int flags) {
+		GeometricScene.Background background = new GeometricScene.Background(300, 300);
+		background.setNight((flags & KittySceneFile.NIGHT) != 0);
+		background.setMoonVisible((flags & KittySceneFile.MOON) != 0);
+		background.setPyramidVisible((flags & KittySceneFile.PYRAMID) != 0);
+		KittyPoster poster = new KittyPoster(model, 1);
+		GeometricScene.addPosterScenery(poster, background);
+		GeometricScene.addPosterScenery(poster, new GeometricScene.Ground());
+		return poster;
+	}
+
+	private static String name(long seed, int flags) {
+		return seed + (((flags & KittySceneFile.NIGHT) != 0) ? "-night" : "-day")
+				+ (((flags & KittySceneFile.MOON) != 0) ? "-moon" : "")
+				+ (((flags & KittySceneFile.PYRAMID) != 0) ? "-pyramid" : "") + ".png";
+	}
+
+	private static long[] readSeeds(Path path) throws IOException {
+		List<String> lines = Files.readAllLines(path);
+		return lines.stream().map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#"))
+				.mapToLong(Long::parseLong).toArray();
+	}
+}
@@ -0,0 +1,243 @@
+package kittymaker;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * KittyGrid
+ * Uniform grid spatial index over kitty bounding ellipses, used for picking, dragging, rubber band
+ * selection and culling. A kitty lives in the cell holding its center, lookups widen the searched
+ * cells by the largest radius indexed so far, so a lookup only touches kitties near the area asked for.
+ * Kitties are referred to by their KittyStore id.
+ */
+public class KittyGrid {
+	private static final int INITIAL_CAPACITY = 16;
+	private final double cellWidth;
+	private final double cellHeight;
+	private final int columns;
+	private final int rows;
+	// ids in each cell, unordered
+	private int[][] cells;
+	private int[] cellSizes;
+	// per id, cell is -1 when the id is not indexed
+	private double[] centerX = new double[INITIAL_CAPACITY];
+	private double[] centerY = new double[INITIAL_CAPACITY];
+	private double[] radiusX = new double[INITIAL_CAPACITY];
+	private double[] radiusY = new double[INITIAL_CAPACITY];
+	private int[] cellOf = new int[INITIAL_CAPACITY];
+	private int[] slotOf = new int[INITIAL_CAPACITY];
+	private double maxRadiusX;
+	private double maxRadiusY;
+	private int size;
+
+	/**
+	 * KittyGrid
+	 * Class Constructor
+	 * @param width double - width of the indexed area, kitties outside are kept in the edge cells
+	 * @param height double - height of the indexed area
+	 * @param cellWidth double - cell width, about the width of a kitty works well
+	 * @param cellHeight double - cell height
+	 */
+	public KittyGrid(double width, double height, double cellWidth, double cellHeight) {
+		this.cellWidth = cellWidth;
+		this.cellHeight = cellHeight;
+		columns = Math.max(1, (int) Math.ceil(width / cellWidth));
+		rows = Math.max(1, (int) Math.ceil(height / cellHeight));
+		cells = new int[columns * rows][];
+		cellSizes = new int[columns * rows];
+		Arrays.fill(cellOf, -1);
+	}
+
+	/**
+	 * Index a kitty
+	 * @param id int - kitty id
+	 * @param x double - center X
+	 * @param y double - center Y
+	 * @param rx double - horizontal radius of the bounding ellipse
+	 * @param ry double - vertical radius of the bounding ellipse
+	 */
+	public void insert(int id, double x, double y, double rx, double ry) {
+		if (id >= cellOf.length) {
+			grow(Math.max(id + 1, cellOf.length * 2));
+		}
+		if (cellOf[id] >= 0) {
+			remove(id);
+		}
+		centerX[id] = x;
+		centerY[id] = y;
+		radiusX[id] = rx;
+		radiusY[id] = ry;
+		maxRadiusX = Math.max(maxRadiusX, rx);
+		maxRadiusY = Math.max(maxRadiusY, ry);
+		addToCell(id, cellIndex(x, y));
+		size++;
+	}
+
+	/**
+	 * Stop indexing a kitty
+	 * @param id int - kitty id
+	 */
+	public void remove(int id) {
+		if (!contains(id)) {
+			return;
+		}
+		removeFromCell(id);
+		cellOf[id] = -1;
+		size--;
+	}
+
+	/**
+	 * Move an indexed kitty
+	 * @param id int - kitty id
+	 * @param x double - new center X
+	 * @param y double - new center Y
+	 */
+	public void move(int id, double x, double y) {
+		centerX[id] = x;
+		centerY[id] = y;
+		int cell = cellIndex(x, y);
+		if (cell != cellOf[id]) {
+			removeFromCell(id);
+			addToCell(id, cell);
+		}
+	}
+
+	public boolean contains(int id) {
+		return id >= 0 && id < cellOf.length && cellOf[id] >= 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getX(int id) {
+		return centerX[id];
+	}
+
+	public double getY(int id) {
+		return centerY[id];
+	}
+
+	public double getRadiusX(int id) {
+		return radiusX[id];
+	}
+
+	public double getRadiusY(int id) {
+		return radiusY[id];
+	}
+
+	/**
+	 * @return double - largest horizontal radius indexed so far
+	 */
+	public double getMaxRadiusX() {
+		return maxRadiusX;
+	}
+
+	/**
+	 * @return double - largest vertical radius indexed so far
+	 */
+	public double getMaxRadiusY() {
+		return maxRadiusY;
+	}
+
+	/**
+	 * Visit every kitty whose bounding box overlaps a rectangle
+	 * @param minX double - left edge
+	 * @param minY double - top edge
+	 * @param maxX double - right edge
+	 * @param maxY double - bottom edge
+	 * @param visitor IntConsumer - called with each kitty id
+	 */
+	public void query(double minX, double minY, double maxX, double maxY, IntConsumer visitor) {
+		int firstColumn = column(minX - maxRadiusX);
+		int lastColumn = column(maxX + maxRadiusX);
+		int firstRow = row(minY - maxRadiusY);
+		int lastRow = row(maxY + maxRadiusY);
+		for (int r = firstRow; r <= lastRow; r++) {
+			for (int c = firstColumn; c <= lastColumn; c++) {
+				int cell = r * columns + c;
+				int[] ids = cells[cell];
+				for (int i = 0; i < cellSizes[cell]; i++) {
+					int id = ids[i];
+					if (centerX[id] + radiusX[id] >= minX && centerX[id] - radiusX[id] <= maxX
+							&& centerY[id] + radiusY[id] >= minY && centerY[id] - radiusY[id] <= maxY) {
+						visitor.accept(id);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Visit every kitty whose bounding ellipse contains a point
+	 * @param x double - point X
+	 * @param y double - point Y
+	 * @param visitor IntConsumer - called with each kitty id
+	 */
+	public void hits(double x, double y, IntConsumer visitor) {
+		query(x, y, x, y, id -> {
+			double dx = (x - centerX[id]) / radiusX[id];
+			double dy = (y - centerY[id]) / radiusY[id];
+			if (dx * dx + dy * dy <= 1) {
+				visitor.accept(id);
+			}
+		});
+	}
+
+	/**
+	 * Remove every kitty
+	 */
+	public void clear() {
+		Arrays.fill(cellSizes, 0);
+		Arrays.fill(cellOf, -1);
+		maxRadiusX = 0;
+		maxRadiusY = 0;
+		size = 0;
+	}
+
+	private int column(double x) {
+		return Math.min(columns - 1, Math.max(0, (int) Math.floor(x / cellWidth)));
+	}
+
+	private int row(double y) {
+		return Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellHeight)));
+	}
+
+	private int cellIndex(double x, double y) {
+		return row(y) * columns + column(x);
+	}
+
+	private void addToCell(int id, int cell) {
+		int[] ids = cells[cell];
+		if (ids == null) {
+			ids = cells[cell] = new int[4];
+		} else if (cellSizes[cell] == ids.length) {
+			ids = cells[cell] = Arrays.copyOf(ids, ids.length * 2);
+		}
+		slotOf[id] = cellSizes[cell];
+		ids[cellSizes[cell]++] = id;
+		cellOf[id] = cell;
+	}
+
+	private void removeFromCell(int id) {
+		int cell = cellOf[id];
+		int[] ids = cells[cell];
+		int last = --cellSizes[cell];
+		int slot = slotOf[id];
+		if (slot != last) {
+			ids[slot] = ids[last];
+			slotOf[ids[slot]] = slot;
+		}
+	}
+
+	private void grow(int capacity) {
+		int old = cellOf.length;
+		centerX = Arrays.copyOf(centerX, capacity);
+		centerY = Arrays.copyOf(centerY, capacity);
+		radiusX = Arrays.copyOf(radiusX, capacity);
+		radiusY = Arrays.copyOf(radiusY, capacity);
+		slotOf = Arrays.copyOf(slotOf, capacity);
+		cellOf = Arrays.copyOf(cellOf, capacity);
+		Arrays.fill(cellOf, old, capacity, -1);
+	}
+}
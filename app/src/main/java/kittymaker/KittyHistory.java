@@ -0,0 +1,735 @@
+package kittymaker;
+
+import java.util.Arrays;
+
+/**
+ * KittyHistory
+ * Undo, redo and seeking through everything done to a KittySceneModel: kitties created and deleted, shown and
+ * hidden, and background toggles. Each operation is appended to a log as it happens, holding enough to be done
+ * again or undone, so the scene at any point of the log is the operations up to it replayed in order.
+ *
+ * The log is delta encoded, ids and positions as the (variable length) difference from the operation before,
+ * so most operations take 2 to 15 bytes. Every BLOCK operations the decoder state is kept, so any operation can be
+ * read without decoding the log from the start. Compact snapshots of the whole scene are taken once the log written
+ * since the last one is as large as it was, which keeps snapshots from ever taking more memory than the log and
+ * bounds the operations replayed to reach any point by the size of a snapshot. When log and snapshots together go
+ * over the budget, everything before the oldest snapshots is dropped.
+ *
+ * The budget holds even for a single step. When an operation would take the history over it and dropping old
+ * snapshots does not help (a step that spawns, loads or clears millions of kitties), the whole history is thrown
+ * away and nothing more is recorded: that step and everything before it can no longer be undone. Recording starts
+ * again, from a snapshot of the scene as it is, at the first step once the scene's snapshot would take no more than
+ * half the budget, so a scene too large to snapshot within the budget has no history at all.
+ *
+ * Undo and redo work a step at a time, a step being everything one call on the model did (a clear, a spawned batch).
+ * Recording an operation after undoing drops the steps that could have been redone. Kitty positions are kept to
+ * 1/POSITION_SCALE of a world unit, and moves (dragging, wandering) are not operations: a kitty comes back where it
+ * was when it was deleted, or where it was created.
+ *
+ * Every method locks the model, the model calls the recording methods with it locked.
+ */
+public class KittyHistory {
+	// operations, in the low three bits of an operation's first byte
+	private static final int CREATE = 1;
+	private static final int DELETE = 2;
+	private static final int SHOW = 3;
+	private static final int HIDE = 4;
+	private static final int BACKGROUND = 5;
+	private static final int KIND = 7;
+	// the operation starts an undo step
+	private static final int STEP = 8;
+	// the kitty created or deleted is hidden
+	private static final int HIDDEN = 16;
+	// scales in the top three bits: 0-3 the creator's kinds (bit 0 thicc, bit 1 tall), OTHER_SCALE followed by both as floats
+	private static final int SCALE_SHIFT = 5;
+	private static final int OTHER_SCALE = 4;
+	private static final int BLOCK = 64;
+	private static final int POSITION_SCALE = 64;
+	// least log written between snapshots, so small scenes are not snapshotted every few operations
+	private static final int MIN_SNAPSHOT_GAP = 1 << 16;
+	// about what a kitty takes in a snapshot, to judge whether a scene is small enough to start recording again
+	private static final int SNAPSHOT_KITTY_BYTES = 16;
+	private final KittySceneModel model;
+	private long budget;
+	// the history went over budget, nothing is recorded until the scene is small enough to snapshot
+	private boolean suspended;
+	private boolean applying;
+	private boolean newStep;
+	// the log, operations base to end, of which those before cursor are applied; first is the oldest snapshot,
+	// operations between base and first are only kept for decoding
+	private Bytes log = new Bytes(4096);
+	private long base;
+	private long first;
+	private long end;
+	private long cursor;
+	// coder state after the last operation, for appending
+	private final Coder tail = new Coder();
+	// offset and coder state at the start of each block of BLOCK operations from base
+	private int[] blockOffset = new int[16];
+	private int[] blockId = new int[16];
+	private int[] blockX = new int[16];
+	private int[] blockY = new int[16];
+	// snapshots in position order, the first is always at first
+	private long[] snapshotAt = new long[4];
+	private int[] snapshotOffset = new int[4];
+	private int[] snapshotSize = new int[4];
+	private byte[][] snapshots = new byte[4][];
+	private int snapshotCount;
+	private long snapshotBytes;
+	// one operation, as decoded
+	private final Op op = new Op();
+
+	/**
+	 * Bytes
+	 * A growable byte array with variable length integers, read from a position of its own
+	 */
+	private static final class Bytes {
+		private byte[] data;
+		private int length;
+		private int position;
+
+		private Bytes(int capacity) {
+			data = new byte[capacity];
+		}
+
+		private Bytes(byte[] data) {
+			this.data = data;
+			length = data.length;
+		}
+
+		private void put(int b) {
+			if (length == data.length) {
+				data = Arrays.copyOf(data, data.length * 2);
+			}
+			data[length++] = (byte) b;
+		}
+
+		private void putInt(int x) {
+			put(x >>> 24);
+			put(x >>> 16);
+			put(x >>> 8);
+			put(x);
+		}
+
+		private void putVarint(int x) {
+			// zig-zag, so small negative differences are small too
+			int v = (x << 1) ^ (x >> 31);
+			while ((v & ~0x7F) != 0) {
+				put((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			put(v);
+		}
+
+		private int get() {
+			return data[position++] & 0xFF;
+		}
+
+		private int getInt() {
+			return get() << 24 | get() << 16 | get() << 8 | get();
+		}
+
+		private int getVarint() {
+			int v = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = get();
+				v |= (b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			return (v >>> 1) ^ -(v & 1);
+		}
+	}
+
+	/**
+	 * Coder
+	 * The values operations are encoded as differences from
+	 */
+	private static final class Coder {
+		private int id;
+		private int x;
+		private int y;
+
+		private void set(int id, int x, int y) {
+			this.id = id;
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	/**
+	 * Op
+	 * A decoded operation, positions still scaled by POSITION_SCALE
+	 */
+	private static final class Op {
+		private int header;
+		private int id;
+		private int x;
+		private int y;
+		private int main;
+		private int eye;
+		private double scaleX;
+		private double scaleY;
+		private int fromFlags;
+		private int toFlags;
+
+		private int kind() {
+			return header & KIND;
+		}
+	}
+
+	/**
+	 * KittyHistory
+	 * Class Constructor, starts with a snapshot of the model as it is
+	 * @param model KittySceneModel - scene to record
+	 * @param budget long - most bytes for the log and snapshots, 0 to record nothing
+	 */
+	KittyHistory(KittySceneModel model, long budget) {
+		this.model = model;
+		setBudget(budget);
+	}
+
+	/**
+	 * Change how much memory the history may take, throwing away all of it and starting again from the scene as it is
+	 * @param bytes long - most bytes for the log and snapshots, 0 to record nothing
+	 */
+	public void setBudget(long bytes) {
+		synchronized (model) {
+			budget = Math.max(0, bytes);
+			forget();
+			suspended = false;
+			if (budget > 0) {
+				start();
+			}
+		}
+	}
+
+	/**
+	 * @return boolean - true while nothing is recorded because the history went over budget
+	 */
+	public boolean isSuspended() {
+		synchronized (model) {
+			return suspended;
+		}
+	}
+
+	public long getBudget() {
+		synchronized (model) {
+			return budget;
+		}
+	}
+
+	/**
+	 * @return long - position of the oldest operation kept, seek() cannot go further back
+	 */
+	public long getFirst() {
+		synchronized (model) {
+			return first;
+		}
+	}
+
+	/**
+	 * @return long - position after the last operation recorded
+	 */
+	public long getEnd() {
+		synchronized (model) {
+			return end;
+		}
+	}
+
+	/**
+	 * @return long - position of the scene, operations before it are applied
+	 */
+	public long getPosition() {
+		synchronized (model) {
+			return cursor;
+		}
+	}
+
+	/**
+	 * @return long - bytes taken by the log, its block index and the snapshots
+	 */
+	public long getBytes() {
+		synchronized (model) {
+			return log.data.length + blockOffset.length * 16L + snapshotBytes;
+		}
+	}
+
+	public int getSnapshotCount() {
+		synchronized (model) {
+			return snapshotCount;
+		}
+	}
+
+	public boolean canUndo() {
+		synchronized (model) {
+			return cursor > first;
+		}
+	}
+
+	public boolean canRedo() {
+		synchronized (model) {
+			return cursor < end;
+		}
+	}
+
+	/*
+	 * RECORDING, called by the model
+	 */
+
+	/**
+	 * The next operation recorded starts a new undo step, and the scene is whole, so snapshot it if one is due
+	 */
+	void step() {
+		if (applying || budget == 0) {
+			return;
+		}
+		if (suspended) {
+			if ((long) model.size() * SNAPSHOT_KITTY_BYTES > budget / 2) {
+				return;
+			}
+			start();
+			if (suspended) {
+				return;
+			}
+		}
+		newStep = true;
+		int last = snapshotCount - 1;
+		if (cursor == end && end > snapshotAt[last]
+				&& log.length - snapshotOffset[last] >= Math.max(MIN_SNAPSHOT_GAP, snapshotSize[last])) {
+			snapshot();
+			compact();
+		}
+	}
+
+	/**
+	 * A kitty was added
+	 * @param index int - its dense position in the store
+	 */
+	void kittyAdded(int index) {
+		if (recording()) {
+			kitty(CREATE, model.getStore(), index);
+			appended();
+		}
+	}
+
+	/**
+	 * A kitty is about to be removed
+	 * @param index int - its dense position in the store
+	 */
+	void kittyRemoving(int index) {
+		if (recording()) {
+			kitty(DELETE, model.getStore(), index);
+			appended();
+		}
+	}
+
+	/**
+	 * A kitty was shown or hidden
+	 * @param id int - kitty id
+	 * @param visible boolean - its new visibility
+	 */
+	void visibilityChanged(int id, boolean visible) {
+		if (recording()) {
+			log.put(header(visible ? SHOW : HIDE));
+			log.putVarint(id - tail.id);
+			tail.id = id;
+			appended();
+		}
+	}
+
+	/**
+	 * The background toggles changed
+	 * @param from int - KittySceneFile background flags before
+	 * @param to int - KittySceneFile background flags after
+	 */
+	void backgroundChanged(int from, int to) {
+		if (recording()) {
+			log.put(header(BACKGROUND));
+			log.put(from << 3 | to);
+			appended();
+		}
+	}
+
+	/**
+	 * Get ready to append an operation, dropping the operations that were undone and starting a block when one is due
+	 * @return boolean - false if operations are not being recorded
+	 */
+	private boolean recording() {
+		if (applying || budget == 0 || suspended) {
+			return false;
+		}
+		if (cursor < end) {
+			truncate();
+		}
+		if (log.length + snapshotBytes > budget) {
+			compact();
+			if (log.length + snapshotBytes > budget) {
+				forget();
+				suspended = true;
+				return false;
+			}
+		}
+		int block = (int) ((end - base) / BLOCK);
+		if ((end - base) % BLOCK == 0) {
+			if (block == blockOffset.length) {
+				int capacity = block * 2;
+				blockOffset = Arrays.copyOf(blockOffset, capacity);
+				blockId = Arrays.copyOf(blockId, capacity);
+				blockX = Arrays.copyOf(blockX, capacity);
+				blockY = Arrays.copyOf(blockY, capacity);
+			}
+			blockOffset[block] = log.length;
+			blockId[block] = tail.id;
+			blockX[block] = tail.x;
+			blockY[block] = tail.y;
+		}
+		return true;
+	}
+
+	private int header(int kind) {
+		int header = kind | (newStep ? STEP : 0);
+		newStep = false;
+		return header;
+	}
+
+	private void kitty(int kind, KittyStore store, int index) {
+		double scaleX = store.getScaleX(index);
+		double scaleY = store.getScaleY(index);
+		boolean standard = (scaleX == 1 || scaleX == 2) && (scaleY == 1 || scaleY == 2);
+		int scale = standard ? (scaleX == 2 ? 1 : 0) | (scaleY == 2 ? 2 : 0) : OTHER_SCALE;
+		log.put(header(kind) | (store.isVisible(index) ? 0 : HIDDEN) | scale << SCALE_SHIFT);
+		putKitty(log, tail, store, index);
+		if (!standard) {
+			log.putInt(Float.floatToIntBits((float) scaleX));
+			log.putInt(Float.floatToIntBits((float) scaleY));
+		}
+	}
+
+	private static void putKitty(Bytes bytes, Coder coder, KittyStore store, int index) {
+		int id = store.idAt(index);
+		int x = (int) Math.round(store.getX(index) * POSITION_SCALE);
+		int y = (int) Math.round(store.getY(index) * POSITION_SCALE);
+		bytes.putVarint(id - coder.id);
+		bytes.putVarint(x - coder.x);
+		bytes.putVarint(y - coder.y);
+		bytes.putInt(store.getMainColor(index));
+		bytes.putInt(store.getEyeColor(index));
+		coder.set(id, x, y);
+	}
+
+	private void appended() {
+		end++;
+		cursor = end;
+	}
+
+	/**
+	 * Drop the operations after the cursor, which can no longer be redone
+	 */
+	private void truncate() {
+		Bytes reader = seekOp(cursor);
+		log.length = reader.position;
+		tail.set(op.id, op.x, op.y);
+		end = cursor;
+		while (snapshotCount > 1 && snapshotAt[snapshotCount - 1] > cursor) {
+			snapshotBytes -= snapshotSize[--snapshotCount];
+			snapshots[snapshotCount] = null;
+		}
+	}
+
+	/**
+	 * Throw the whole history away
+	 */
+	private void forget() {
+		log = new Bytes(4096);
+		base = 0;
+		first = 0;
+		end = 0;
+		cursor = 0;
+		tail.set(0, 0, 0);
+		snapshotCount = 0;
+		snapshotBytes = 0;
+		Arrays.fill(snapshots, null);
+	}
+
+	/**
+	 * Start recording from a snapshot of the scene as it is, or stay suspended if that takes over half the budget
+	 */
+	private void start() {
+		snapshot();
+		suspended = snapshotBytes > budget / 2;
+		if (suspended) {
+			forget();
+		}
+	}
+
+	/**
+	 * Take a snapshot of the scene at the end of the log: background flags, kitty count, then the kitties by id
+	 */
+	private void snapshot() {
+		KittyStore store = model.getStore();
+		Bytes bytes = new Bytes(64 + store.size() * 16);
+		bytes.put(model.getBackgroundFlags());
+		bytes.putVarint(store.size());
+		Coder coder = new Coder();
+		for (int id = 0, found = 0; found < store.size(); id++) {
+			int index = store.indexOf(id);
+			if (index < 0) {
+				continue;
+			}
+			double scaleX = store.getScaleX(index);
+			double scaleY = store.getScaleY(index);
+			boolean standard = (scaleX == 1 || scaleX == 2) && (scaleY == 1 || scaleY == 2);
+			int scale = standard ? (scaleX == 2 ? 1 : 0) | (scaleY == 2 ? 2 : 0) : OTHER_SCALE;
+			bytes.put((store.isVisible(index) ? 0 : HIDDEN) | scale << SCALE_SHIFT);
+			putKitty(bytes, coder, store, index);
+			if (!standard) {
+				bytes.putInt(Float.floatToIntBits((float) scaleX));
+				bytes.putInt(Float.floatToIntBits((float) scaleY));
+			}
+			found++;
+		}
+		if (snapshotCount == snapshots.length) {
+			int capacity = snapshotCount * 2;
+			snapshotAt = Arrays.copyOf(snapshotAt, capacity);
+			snapshotOffset = Arrays.copyOf(snapshotOffset, capacity);
+			snapshotSize = Arrays.copyOf(snapshotSize, capacity);
+			snapshots = Arrays.copyOf(snapshots, capacity);
+		}
+		snapshotAt[snapshotCount] = end;
+		snapshotOffset[snapshotCount] = log.length;
+		snapshotSize[snapshotCount] = bytes.length;
+		snapshots[snapshotCount++] = Arrays.copyOf(bytes.data, bytes.length);
+		snapshotBytes += bytes.length;
+	}
+
+	/**
+	 * Over budget, drop everything before the oldest snapshot that brings the history back under it, or if none
+	 * does, before the newest. The log is kept from the start of that snapshot's block.
+	 */
+	private void compact() {
+		int keep = 0;
+		while (keep < snapshotCount - 1 && log.length - snapshotOffset[keep] + snapshotBytes > budget) {
+			snapshotBytes -= snapshotSize[keep];
+			keep++;
+		}
+		if (keep == 0) {
+			return;
+		}
+		int blocks = (int) ((snapshotAt[keep] - base) / BLOCK);
+		int blockCount = (int) ((end - base + BLOCK - 1) / BLOCK);
+		int shift = blockOffset[blocks];
+		System.arraycopy(log.data, shift, log.data, 0, log.length - shift);
+		log.length -= shift;
+		for (int b = blocks; b < blockCount; b++) {
+			blockOffset[b - blocks] = blockOffset[b] - shift;
+			blockId[b - blocks] = blockId[b];
+			blockX[b - blocks] = blockX[b];
+			blockY[b - blocks] = blockY[b];
+		}
+		for (int s = keep; s < snapshotCount; s++) {
+			snapshotAt[s - keep] = snapshotAt[s];
+			snapshotOffset[s - keep] = snapshotOffset[s] - shift;
+			snapshotSize[s - keep] = snapshotSize[s];
+			snapshots[s - keep] = snapshots[s];
+		}
+		Arrays.fill(snapshots, snapshotCount - keep, snapshotCount, null);
+		snapshotCount -= keep;
+		base += (long) blocks * BLOCK;
+		first = snapshotAt[0];
+	}
+
+	/*
+	 * MOVING THROUGH THE HISTORY
+	 */
+
+	/**
+	 * Undo the last step before the cursor
+	 * @return boolean - false if there was nothing to undo
+	 */
+	public boolean undo() {
+		synchronized (model) {
+			if (cursor == first) {
+				return false;
+			}
+			boolean stepStart;
+			do {
+				readOp(cursor - 1);
+				stepStart = (op.header & STEP) != 0;
+				apply(false);
+				cursor--;
+			} while (cursor > first && !stepStart);
+			return true;
+		}
+	}
+
+	/**
+	 * Redo the step at the cursor
+	 * @return boolean - false if there was nothing to redo
+	 */
+	public boolean redo() {
+		synchronized (model) {
+			if (cursor == end) {
+				return false;
+			}
+			Bytes reader = seekOp(cursor);
+			do {
+				decode(reader);
+				apply(true);
+				cursor++;
+				// peek at whether the next operation starts a step
+			} while (cursor < end && (reader.data[reader.position] & STEP) == 0);
+			return true;
+		}
+	}
+
+	/**
+	 * Bring the scene to a point in the history, replaying from the nearest snapshot or from the scene as it is,
+	 * whichever is fewer operations
+	 * @param position long - operations to have applied, clamped to getFirst() and getEnd()
+	 */
+	public void seek(long position) {
+		synchronized (model) {
+			if (suspended) {
+				return;
+			}
+			long target = Math.max(first, Math.min(end, position));
+			int s = snapshotCount - 1;
+			while (snapshotAt[s] > target) {
+				s--;
+			}
+			long restoreCost = model.size() + snapshotSize[s] / 16 + (target - snapshotAt[s]);
+			if (Math.abs(target - cursor) > restoreCost) {
+				restore(s);
+			}
+			if (target > cursor) {
+				Bytes reader = seekOp(cursor);
+				while (cursor < target) {
+					decode(reader);
+					apply(true);
+					cursor++;
+				}
+			}
+			while (cursor > target) {
+				readOp(cursor - 1);
+				apply(false);
+				cursor--;
+			}
+		}
+	}
+
+	/**
+	 * Replace the scene with a snapshot
+	 */
+	private void restore(int s) {
+		Bytes bytes = new Bytes(snapshots[s]);
+		op.id = 0;
+		op.x = 0;
+		op.y = 0;
+		applying = true;
+		try {
+			model.clear();
+			model.setBackgroundFlags(bytes.get());
+			int count = bytes.getVarint();
+			for (int i = 0; i < count; i++) {
+				op.header = bytes.get();
+				getKitty(bytes);
+				model.restore(op.id, op.main, op.eye, op.x / (double) POSITION_SCALE, op.y / (double) POSITION_SCALE,
+						op.scaleX, op.scaleY, (op.header & HIDDEN) == 0);
+			}
+		} finally {
+			applying = false;
+		}
+		cursor = snapshotAt[s];
+	}
+
+	/**
+	 * Do an operation, or undo it
+	 */
+	private void apply(boolean forward) {
+		applying = true;
+		try {
+			int kind = op.kind();
+			if (kind == CREATE && forward || kind == DELETE && !forward) {
+				model.restore(op.id, op.main, op.eye, op.x / (double) POSITION_SCALE, op.y / (double) POSITION_SCALE,
+						op.scaleX, op.scaleY, (op.header & HIDDEN) == 0);
+			} else if (kind == CREATE || kind == DELETE) {
+				model.remove(op.id);
+			} else if (kind == SHOW || kind == HIDE) {
+				model.setVisible(op.id, (kind == SHOW) == forward);
+			} else if (kind == BACKGROUND) {
+				model.setBackgroundFlags(forward ? op.toFlags : op.fromFlags);
+			}
+		} finally {
+			applying = false;
+		}
+	}
+
+	/**
+	 * Decode the operation at a position into op
+	 */
+	private void readOp(long position) {
+		decode(seekOp(position));
+	}
+
+	/**
+	 * A reader placed at an operation, with the coder state before it in op
+	 */
+	private Bytes seekOp(long position) {
+		int block = (int) ((position - base) / BLOCK);
+		Bytes reader = new Bytes(log.data);
+		if (position == end && (end - base) % BLOCK == 0) {
+			// the block at the end has not been started yet
+			reader.position = log.length;
+			op.id = tail.id;
+			op.x = tail.x;
+			op.y = tail.y;
+			return reader;
+		}
+		reader.position = blockOffset[block];
+		op.id = blockId[block];
+		op.x = blockX[block];
+		op.y = blockY[block];
+		for (long p = base + (long) block * BLOCK; p < position; p++) {
+			decode(reader);
+		}
+		return reader;
+	}
+
+	/**
+	 * Decode the next operation into op, ids and positions are differences from op's values for the one before
+	 */
+	private void decode(Bytes reader) {
+		op.header = reader.get();
+		int kind = op.kind();
+		if (kind == CREATE || kind == DELETE) {
+			getKitty(reader);
+		} else if (kind == SHOW || kind == HIDE) {
+			op.id += reader.getVarint();
+		} else if (kind == BACKGROUND) {
+			int flags = reader.get();
+			op.fromFlags = flags >> 3;
+			op.toFlags = flags & 7;
+		}
+	}
+
+	/**
+	 * Decode a kitty into op, its id and position are differences from op's
+	 */
+	private void getKitty(Bytes bytes) {
+		op.id += bytes.getVarint();
+		op.x += bytes.getVarint();
+		op.y += bytes.getVarint();
+		op.main = bytes.getInt();
+		op.eye = bytes.getInt();
+		int scale = op.header >> SCALE_SHIFT;
+		if (scale == OTHER_SCALE) {
+			op.scaleX = Float.intBitsToFloat(bytes.getInt());
+			op.scaleY = Float.intBitsToFloat(bytes.getInt());
+		} else {
+			op.scaleX = (scale & 1) != 0 ? 2 : 1;
+			op.scaleY = (scale & 2) != 0 ? 2 : 1;
+		}
+	}
+}
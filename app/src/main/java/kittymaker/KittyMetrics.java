@@ -0,0 +1,313 @@
+package kittymaker;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * KittyMetrics
+ * Running performance figures for the overlay and for JMX: frame rate, the intervals between pulses and how long
+ * each pulse took over the last SAMPLES pulses, scene graph size, live kitties, heap, counts of the instrumented
+ * operations, the kitty detail level with how often and why it last changed, and the ingestion feed's queue
+ * depth and counts when one is watched (read live, not snapshotted).
+ * A pulse's duration runs from its start, the time every animation timer is handed, to the end of its layout
+ * pass, the application thread's share of the frame; rendering it happens afterwards on the render thread.
+ * Pulses and snapshots come from the application thread; counters may be bumped and every figure read
+ * from any thread. Figures only change when publish() takes a new snapshot.
+ */
+public class KittyMetrics implements KittyMetricsMBean {
+	public static final String NAME = "kittymaker:type=KittyMetrics";
+	// pulse intervals kept for the percentiles, about four seconds at 60 frames a second
+	private static final int SAMPLES = 256;
+	// the instance currently registered
+	private static KittyMetrics registered;
+	private final long[] intervals = new long[SAMPLES];
+	private final long[] durations = new long[SAMPLES];
+	private final long[] sorted = new long[SAMPLES];
+	private int sampleCount;
+	private int nextSample;
+	private int durationCount;
+	private int nextDuration;
+	private long lastPulse = -1;
+	// start of the pulse under way, -1 once its end has been noted
+	private long pulseStart = -1;
+	private final LongAdder kittiesCreated = new LongAdder();
+	private final LongAdder panelRebuilds = new LongAdder();
+	private final LongAdder dispatches = new LongAdder();
+	private final LongAdder backgroundToggles = new LongAdder();
+	private volatile double framesPerSecond;
+	private volatile double frameIntervalP50Millis;
+	private volatile double frameIntervalP99Millis;
+	private volatile double pulseDurationP50Millis;
+	private volatile double pulseDurationP99Millis;
+	private volatile long nodeCount;
+	private volatile long liveKitties;
+	private volatile long heapUsedBytes;
+	private volatile long heapMaxBytes;
+	private volatile KittyDetail detail = KittyDetail.FULL;
+	private volatile String lastDetailChange = "";
+	private volatile long detailStepsDown;
+	private volatile long detailStepsUp;
+	private volatile KittyFeed feed;
+
+	/**
+	 * Note an animation pulse
+	 * @param now long - pulse time in nanoseconds
+	 */
+	public void pulse(long now) {
+		if (lastPulse >= 0) {
+			intervals[nextSample] = now - lastPulse;
+			nextSample = (nextSample + 1) % SAMPLES;
+			sampleCount = Math.min(SAMPLES, sampleCount + 1);
+		}
+		lastPulse = now;
+		pulseStart = now;
+	}
+
+	/**
+	 * Note the end of the pulse last passed to pulse()
+	 * @param now long - time in nanoseconds, from System.nanoTime()
+	 */
+	public void pulseDone(long now) {
+		if (pulseStart < 0) {
+			return;
+		}
+		durations[nextDuration] = Math.max(0, now - pulseStart);
+		nextDuration = (nextDuration + 1) % SAMPLES;
+		durationCount = Math.min(SAMPLES, durationCount + 1);
+		pulseStart = -1;
+	}
+
+	/**
+	 * Take a new snapshot of every figure
+	 * @param nodes long - nodes in the scene graph
+	 * @param kitties long - live kitties
+	 */
+	public void publish(long nodes, long kitties) {
+		if (sampleCount > 0) {
+			System.arraycopy(intervals, 0, sorted, 0, sampleCount);
+			Arrays.sort(sorted, 0, sampleCount);
+			long total = 0;
+			for (int i = 0; i < sampleCount; i++) {
+				total += sorted[i];
+			}
+			framesPerSecond = sampleCount * 1e9 / total;
+			frameIntervalP50Millis = percentile(0.50, sampleCount) / 1e6;
+			frameIntervalP99Millis = percentile(0.99, sampleCount) / 1e6;
+		}
+		if (durationCount > 0) {
+			System.arraycopy(durations, 0, sorted, 0, durationCount);
+			Arrays.sort(sorted, 0, durationCount);
+			pulseDurationP50Millis = percentile(0.50, durationCount) / 1e6;
+			pulseDurationP99Millis = percentile(0.99, durationCount) / 1e6;
+		}
+		nodeCount = nodes;
+		liveKitties = kitties;
+		Runtime runtime = Runtime.getRuntime();
+		heapUsedBytes = runtime.totalMemory() - runtime.freeMemory();
+		heapMaxBytes = runtime.maxMemory();
+	}
+
+	private long percentile(double p, int count) {
+		return sorted[Math.min(count - 1, (int) Math.ceil(p * count) - 1)];
+	}
+
+	/**
+	 * Forget the pulses so far, e.g. after the pulse has been paused
+	 */
+	public void resetPulses() {
+		sampleCount = 0;
+		nextSample = 0;
+		durationCount = 0;
+		nextDuration = 0;
+		lastPulse = -1;
+		pulseStart = -1;
+	}
+
+	public void kittiesCreated(int count) {
+		kittiesCreated.add(count);
+	}
+
+	public void panelRebuilt() {
+		panelRebuilds.increment();
+	}
+
+	public void dispatched() {
+		dispatches.increment();
+	}
+
+	public void backgroundToggled() {
+		backgroundToggles.increment();
+	}
+
+	/**
+	 * Note a change of kitty detail level
+	 * @param detail KittyDetail - new level
+	 * @param reason String - the change and why it was made
+	 * @param stepsDown long - times detail has been stepped down so far
+	 * @param stepsUp long - times detail has been stepped up so far
+	 */
+	public void detailChanged(KittyDetail detail, String reason, long stepsDown, long stepsUp) {
+		this.detail = detail;
+		lastDetailChange = reason;
+		detailStepsDown = stepsDown;
+		detailStepsUp = stepsUp;
+	}
+
+	/**
+	 * Report an ingestion feed's figures
+	 * @param feed KittyFeed - feed to watch, null for none
+	 */
+	public void watch(KittyFeed feed) {
+		this.feed = feed;
+	}
+
+	/**
+	 * Register with the platform MBean server, replacing an earlier scene's metrics
+	 */
+	public void register() {
+		synchronized (KittyMetrics.class) {
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				ObjectName name = new ObjectName(NAME);
+				if (server.isRegistered(name)) {
+					server.unregisterMBean(name);
+				}
+				server.registerMBean(this, name);
+				registered = this;
+			} catch (JMException e) {
+				System.err.println("Could not register " + NAME + ": " + e);
+			}
+		}
+	}
+
+	/**
+	 * Unregister from the platform MBean server, unless a later scene's metrics have replaced these
+	 */
+	public void unregister() {
+		synchronized (KittyMetrics.class) {
+			if (registered != this) {
+				return;
+			}
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(NAME));
+			} catch (JMException e) {
+				System.err.println("Could not unregister " + NAME + ": " + e);
+			}
+			registered = null;
+		}
+	}
+
+	@Override
+	public double getFramesPerSecond() {
+		return framesPerSecond;
+	}
+
+	@Override
+	public double getFrameIntervalP50Millis() {
+		return frameIntervalP50Millis;
+	}
+
+	@Override
+	public double getFrameIntervalP99Millis() {
+		return frameIntervalP99Millis;
+	}
+
+	@Override
+	public double getPulseDurationP50Millis() {
+		return pulseDurationP50Millis;
+	}
+
+	@Override
+	public double getPulseDurationP99Millis() {
+		return pulseDurationP99Millis;
+	}
+
+	@Override
+	public long getNodeCount() {
+		return nodeCount;
+	}
+
+	@Override
+	public long getLiveKitties() {
+		return liveKitties;
+	}
+
+	@Override
+	public long getHeapUsedBytes() {
+		return heapUsedBytes;
+	}
+
+	@Override
+	public long getHeapMaxBytes() {
+		return heapMaxBytes;
+	}
+
+	@Override
+	public String getDetailLevel() {
+		return detail.name();
+	}
+
+	@Override
+	public String getLastDetailChange() {
+		return lastDetailChange;
+	}
+
+	@Override
+	public long getDetailStepsDown() {
+		return detailStepsDown;
+	}
+
+	@Override
+	public long getDetailStepsUp() {
+		return detailStepsUp;
+	}
+
+	@Override
+	public long getKittiesCreated() {
+		return kittiesCreated.sum();
+	}
+
+	@Override
+	public long getPanelRebuilds() {
+		return panelRebuilds.sum();
+	}
+
+	@Override
+	public long getDispatches() {
+		return dispatches.sum();
+	}
+
+	@Override
+	public long getBackgroundToggles() {
+		return backgroundToggles.sum();
+	}
+
+	@Override
+	public long getFeedQueueDepth() {
+		KittyFeed f = feed;
+		return (f != null) ? f.getQueueDepth() : 0;
+	}
+
+	@Override
+	public long getFeedApplied() {
+		KittyFeed f = feed;
+		return (f != null) ? f.getApplied() : 0;
+	}
+
+	@Override
+	public long getFeedDropped() {
+		KittyFeed f = feed;
+		return (f != null) ? f.getDropped() : 0;
+	}
+
+	@Override
+	public long getFeedMalformed() {
+		KittyFeed f = feed;
+		return (f != null) ? f.getMalformed() : 0;
+	}
+}
@@ -0,0 +1,54 @@
+package kittymaker;
+
+/**
+ * KittyMetricsMBean
+ * Management interface of KittyMetrics, registered as kittymaker:type=KittyMetrics.
+ * Frame figures cover the last few seconds and are refreshed about twice a second for as long as the scene is
+ * up, whether or not the stats overlay is shown, as are the node and kitty counts and heap. Frame intervals are
+ * the times between animation pulses, pulse durations how long the application thread spent on each one.
+ * The detail level is the one adaptive detail is drawing kitties at, the last detail change reads e.g.
+ * "FULL -> NO_PUPILS: average frame 21.3 ms is over the 16.7 ms budget", empty until detail first changes.
+ */
+public interface KittyMetricsMBean {
+	double getFramesPerSecond();
+
+	double getFrameIntervalP50Millis();
+
+	double getFrameIntervalP99Millis();
+
+	double getPulseDurationP50Millis();
+
+	double getPulseDurationP99Millis();
+
+	long getNodeCount();
+
+	long getLiveKitties();
+
+	long getHeapUsedBytes();
+
+	long getHeapMaxBytes();
+
+	String getDetailLevel();
+
+	String getLastDetailChange();
+
+	long getDetailStepsDown();
+
+	long getDetailStepsUp();
+
+	long getKittiesCreated();
+
+	long getPanelRebuilds();
+
+	long getDispatches();
+
+	long getBackgroundToggles();
+
+	long getFeedQueueDepth();
+
+	long getFeedApplied();
+
+	long getFeedDropped();
+
+	long getFeedMalformed();
+}
@@ -0,0 +1,190 @@
+package kittymaker;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * KittyMotion
+ * Wandering simulation for moving kitties. Every kitty has a heading that drifts a little each step and a
+ * speed of its own, and turns back when it reaches the edge of the ground. State is kept in primitive
+ * arrays in the same order as the KittyStore, so adding and removing mirror the store (append and swap
+ * remove), and the caller copies positions back out after stepping.
+ * Steps are a fixed length of time. Large populations are stepped in parallel on the common fork/join
+ * pool, every chunk with a random stream derived from the seed, the step and the chunk, so a step does
+ * the same thing however the work is split up.
+ */
+public class KittyMotion {
+	// seconds per step
+	public static final double STEP = 1.0 / 60;
+	// populations below this are stepped on the calling thread
+	private static final int PARALLEL_THRESHOLD = 4096;
+	private static final int CHUNK = 2048;
+	// pixels per second
+	private static final double MIN_SPEED = 20;
+	private static final double MAX_SPEED = 60;
+	// largest heading change, radians per second
+	private static final double TURN_RATE = 3;
+	// moving towards or away from the viewer covers less of the screen
+	private static final double DEPTH_SCALE = 0.5;
+	private final double minX;
+	private final double maxX;
+	private final double maxY;
+	// top of the ground for a given X
+	private final DoubleUnaryOperator surface;
+	private final long seed;
+	private long steps;
+	private int size;
+	private double[] posX = new double[16];
+	private double[] posY = new double[16];
+	private double[] heading = new double[16];
+	private double[] speed = new double[16];
+	private SplittableRandom random;
+
+	/**
+	 * KittyMotion
+	 * Class Constructor
+	 * @param minX double - smallest center X
+	 * @param maxX double - largest center X
+	 * @param maxY double - largest center Y
+	 * @param surface DoubleUnaryOperator - smallest center Y for a given X, must be safe to call from any thread
+	 * @param seed long - random seed
+	 */
+	public KittyMotion(double minX, double maxX, double maxY, DoubleUnaryOperator surface, long seed) {
+		this.minX = minX;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.surface = surface;
+		this.seed = seed;
+		this.random = new SplittableRandom(seed);
+	}
+
+	/**
+	 * Add a kitty at the end, matching KittyStore.add()
+	 * @param x double - center X
+	 * @param y double - center Y
+	 */
+	public void add(double x, double y) {
+		if (size == posX.length) {
+			ensureCapacity(size * 2);
+		}
+		posX[size] = x;
+		posY[size] = y;
+		heading[size] = random.nextDouble() * Math.PI * 2;
+		speed[size] = MIN_SPEED + random.nextDouble() * (MAX_SPEED - MIN_SPEED);
+		size++;
+	}
+
+	/**
+	 * Remove a kitty, the last kitty is moved into its position, matching KittyStore.remove()
+	 * @param index int - store index of the kitty
+	 */
+	public void remove(int index) {
+		int last = --size;
+		posX[index] = posX[last];
+		posY[index] = posY[last];
+		heading[index] = heading[last];
+		speed[index] = speed[last];
+	}
+
+	public void ensureCapacity(int capacity) {
+		if (capacity > posX.length) {
+			posX = Arrays.copyOf(posX, capacity);
+			posY = Arrays.copyOf(posY, capacity);
+			heading = Arrays.copyOf(heading, capacity);
+			speed = Arrays.copyOf(speed, capacity);
+		}
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double getX(int index) {
+		return posX[index];
+	}
+
+	public double getY(int index) {
+		return posY[index];
+	}
+
+	/**
+	 * Put a kitty somewhere else, used when it is dragged
+	 */
+	public void setPosition(int index, double x, double y) {
+		posX[index] = x;
+		posY[index] = y;
+	}
+
+	/**
+	 * Advance every kitty by one fixed step
+	 */
+	public void step() {
+		long step = steps++;
+		if (size < PARALLEL_THRESHOLD) {
+			for (int from = 0; from < size; from += CHUNK) {
+				update(from, Math.min(size, from + CHUNK), step);
+			}
+		} else {
+			ForkJoinPool.commonPool().invoke(new StepTask(0, size, step));
+		}
+	}
+
+	private void update(int from, int to, long step) {
+		SplittableRandom random = new SplittableRandom(seed ^ (step * 0x9E3779B97F4A7C15L) ^ from);
+		double maxTurn = TURN_RATE * STEP;
+		for (int i = from; i < to; i++) {
+			double h = heading[i] + (random.nextDouble() * 2 - 1) * maxTurn;
+			double distance = speed[i] * STEP;
+			double x = posX[i] + Math.cos(h) * distance;
+			double y = posY[i] + Math.sin(h) * distance * DEPTH_SCALE;
+			// bounce off the edges by mirroring the heading
+			if (x < minX || x > maxX) {
+				x = Math.max(minX, Math.min(maxX, x));
+				h = Math.PI - h;
+			}
+			double top = surface.applyAsDouble(x);
+			if (y < top || y > maxY) {
+				y = Math.max(top, Math.min(maxY, y));
+				h = -h;
+			}
+			posX[i] = x;
+			posY[i] = y;
+			heading[i] = h;
+		}
+	}
+
+	/**
+	 * StepTask
+	 * One step over a range of kitties, split in half until it is down to a chunk
+	 */
+	private class StepTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+		private final long step;
+
+		private StepTask(int from, int to, long step) {
+			this.from = from;
+			this.to = to;
+			this.step = step;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= CHUNK) {
+				update(from, to, step);
+				return;
+			}
+			// split on a chunk boundary so every chunk draws from the same random stream each time
+			int middle = from + Math.max(1, (to - from) / CHUNK / 2) * CHUNK;
+			invokeAll(new StepTask(from, middle, step), new StepTask(middle, to, step));
+		}
+	}
+}
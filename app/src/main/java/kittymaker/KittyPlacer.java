@@ -0,0 +1,342 @@
+package kittymaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+/**
+ * KittyPlacer
+ * Finds spots for new kitties that keep clear of the kitties already on the ground, using Poisson disk
+ * sampling (Bridson's algorithm) over the kitty grid. Kitties that may still have room around them are
+ * kept in an active list, new spots are tried in the ring just outside an active kitty and a kitty is
+ * retired once no spot fits around it, so placing N kitties costs O(N) overall. Each size of kitty has an
+ * active list of its own, so a big kitty not fitting around one still leaves it active for smaller ones.
+ * A kitty is on each list at most once, and the lists are rebuilt from the grid after kitties wander.
+ * hasRoom() probes search with a random stream and active lists of their own, so asking whether a kitty fits
+ * never changes where the next kitty is placed: the same seed and the same kitties give the same spots however
+ * often the controls check for room.
+ * Two kitties are too close when their centers are nearer than their bounding ellipse radii added
+ * together (times the spacing), measured separately along each axis.
+ */
+public class KittyPlacer {
+	// candidate spots tried around an active kitty before it is retired
+	private static final int ATTEMPTS = 30;
+	private final double minX;
+	private final double minY;
+	private final double maxX;
+	private final double maxY;
+	private final double spacing;
+	private final KittyGrid grid;
+	private SplittableRandom random;
+	private SplittableRandom probeRandom;
+	// per kitty size, ids that may still have room around them, for placing and for probing
+	private final ArrayList<Active> actives = new ArrayList<Active>();
+	private final ArrayList<Active> probes = new ArrayList<Active>();
+	// last spot reserved, used by the next place() of that size if nothing has moved into it
+	private boolean found;
+	private double foundX;
+	private double foundY;
+	private double foundScaleX;
+	private double foundScaleY;
+	// last spot a probe found, answers the next probe of that size if nothing has moved into it
+	private boolean probed;
+	private double probeX;
+	private double probeY;
+	private double probeScaleX;
+	private double probeScaleY;
+	// spot found by the last search
+	private double spotX;
+	private double spotY;
+	private double x;
+	private double y;
+
+	/**
+	 * Active
+	 * The kitties that may still have room around them for a kitty of one size
+	 */
+	private static final class Active {
+		private final double scaleX;
+		private final double scaleY;
+		private int[] ids = new int[16];
+		private int count;
+		// ids on the list
+		private final BitSet listed = new BitSet();
+		// kitties have moved since the list was made
+		private boolean stale;
+
+		private Active(double scaleX, double scaleY) {
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+		}
+
+		private void add(int id) {
+			if (listed.get(id)) {
+				return;
+			}
+			if (count == ids.length) {
+				ids = Arrays.copyOf(ids, count * 2);
+			}
+			listed.set(id);
+			ids[count++] = id;
+		}
+
+		private void retire(int index) {
+			listed.clear(ids[index]);
+			ids[index] = ids[--count];
+		}
+
+		private void clear() {
+			listed.clear();
+			count = 0;
+			stale = false;
+		}
+	}
+
+	/**
+	 * KittyPlacer
+	 * Class Constructor
+	 * @param minX double - smallest center X
+	 * @param minY double - smallest center Y
+	 * @param maxX double - largest center X
+	 * @param maxY double - largest center Y
+	 * @param spacing double - 1 keeps bounding ellipses apart, 0 lets kitties overlap freely
+	 * @param grid KittyGrid - the kitties already placed
+	 * @param seed long - random seed
+	 */
+	public KittyPlacer(double minX, double minY, double maxX, double maxY, double spacing, KittyGrid grid, long seed) {
+		this.minX = minX;
+		this.minY = minY;
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.spacing = spacing;
+		this.grid = grid;
+		setSeed(seed);
+	}
+
+	/**
+	 * Check whether a kitty of this size still fits, without changing where place() puts kitties
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return boolean - true if there is room
+	 */
+	public boolean hasRoom(double scaleX, double scaleY) {
+		if (probed && probeScaleX == scaleX && probeScaleY == scaleY && isClear(probeX, probeY, scaleX, scaleY)) {
+			return true;
+		}
+		probed = search(scaleX, scaleY, probeRandom, probes);
+		if (probed) {
+			probeX = spotX;
+			probeY = spotY;
+			probeScaleX = scaleX;
+			probeScaleY = scaleY;
+		}
+		return probed;
+	}
+
+	/**
+	 * Find a spot for a kitty of this size and keep it for the next place() of that size
+	 * Unlike hasRoom() this is part of placing, it draws from the placing random stream.
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return boolean - true if there is room
+	 */
+	public boolean reserve(double scaleX, double scaleY) {
+		if (found && foundScaleX == scaleX && foundScaleY == scaleY && isClear(foundX, foundY, scaleX, scaleY)) {
+			return true;
+		}
+		found = search(scaleX, scaleY, random, actives);
+		if (found) {
+			foundX = spotX;
+			foundY = spotY;
+			foundScaleX = scaleX;
+			foundScaleY = scaleY;
+		}
+		return found;
+	}
+
+	/**
+	 * Find a spot for a kitty, read it back with getX() and getY()
+	 * The caller should index the kitty in the grid and then call placed().
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return boolean - false if there is no room left
+	 */
+	public boolean place(double scaleX, double scaleY) {
+		if (!reserve(scaleX, scaleY)) {
+			return false;
+		}
+		found = false;
+		x = foundX;
+		y = foundY;
+		return true;
+	}
+
+	public double getX() {
+		return x;
+	}
+
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * A kitty has been indexed in the grid, spots around it are worth trying
+	 * @param id int - kitty id
+	 */
+	public void placed(int id) {
+		// overlapping kitties are placed at random, nothing would ever take them off the list
+		if (spacing <= 0) {
+			return;
+		}
+		for (Active active : actives) {
+			active.add(id);
+		}
+		for (Active active : probes) {
+			active.add(id);
+		}
+	}
+
+	/**
+	 * A kitty has left an area (deleted or moved away), its neighbours may have room again
+	 * @param x double - old center X
+	 * @param y double - old center Y
+	 * @param radiusX double - horizontal radius of its bounding ellipse
+	 * @param radiusY double - vertical radius of its bounding ellipse
+	 */
+	public void released(double x, double y, double radiusX, double radiusY) {
+		if (spacing <= 0) {
+			return;
+		}
+		double reachX = (radiusX + grid.getMaxRadiusX()) * Math.max(1, spacing) * 2;
+		double reachY = (radiusY + grid.getMaxRadiusY()) * Math.max(1, spacing) * 2;
+		grid.query(x - reachX, y - reachY, x + reachX, y + reachY, this::placed);
+	}
+
+	/**
+	 * Forget every active kitty, for when the grid has been cleared
+	 */
+	public void reset() {
+		for (Active active : actives) {
+			active.clear();
+		}
+		for (Active active : probes) {
+			active.clear();
+		}
+		found = false;
+		probed = false;
+	}
+
+	/**
+	 * Kitties have moved in the grid without being released and placed one at a time (wandering),
+	 * each active list is made again from the grid the next time it is used
+	 */
+	public void moved() {
+		for (Active active : actives) {
+			active.stale = true;
+		}
+		for (Active active : probes) {
+			active.stale = true;
+		}
+	}
+
+	public void setSeed(long seed) {
+		random = new SplittableRandom(seed);
+		probeRandom = new SplittableRandom(seed).split();
+	}
+
+	/**
+	 * Check a spot is inside the ground region and clear of every other kitty
+	 */
+	public boolean isClear(double cx, double cy, double scaleX, double scaleY) {
+		if (cx < minX || cx > maxX || cy < minY || cy > maxY) {
+			return false;
+		}
+		if (spacing <= 0) {
+			return true;
+		}
+		double rx = 90 * scaleX;
+		double ry = 40 * scaleY;
+		double reachX = (rx + grid.getMaxRadiusX()) * spacing;
+		double reachY = (ry + grid.getMaxRadiusY()) * spacing;
+		boolean[] clear = {true};
+		grid.query(cx - reachX, cy - reachY, cx + reachX, cy + reachY, id -> {
+			double dx = (cx - grid.getX(id)) / ((rx + grid.getRadiusX(id)) * spacing);
+			double dy = (cy - grid.getY(id)) / ((ry + grid.getRadiusY(id)) * spacing);
+			if (dx * dx + dy * dy < 1) {
+				clear[0] = false;
+			}
+		});
+		return clear[0];
+	}
+
+	/**
+	 * Search for a clear spot, leaving it in spotX and spotY
+	 * @param random SplittableRandom - stream to draw candidate spots from
+	 * @param lists ArrayList - active lists to search and retire kitties from
+	 */
+	private boolean search(double scaleX, double scaleY, SplittableRandom random, ArrayList<Active> lists) {
+		if (spacing <= 0) {
+			return randomSpot(scaleX, scaleY, random);
+		}
+		double rx = 90 * scaleX;
+		double ry = 40 * scaleY;
+		Active active = active(scaleX, scaleY, lists);
+		while (active.count > 0) {
+			int a = random.nextInt(active.count);
+			int id = active.ids[a];
+			if (grid.contains(id)) {
+				// ring between one and two separations out from the active kitty
+				double ringX = (rx + grid.getRadiusX(id)) * spacing;
+				double ringY = (ry + grid.getRadiusY(id)) * spacing;
+				for (int i = 0; i < ATTEMPTS; i++) {
+					double angle = random.nextDouble() * Math.PI * 2;
+					double distance = 1 + random.nextDouble();
+					double cx = grid.getX(id) + Math.cos(angle) * distance * ringX;
+					double cy = grid.getY(id) + Math.sin(angle) * distance * ringY;
+					if (isClear(cx, cy, scaleX, scaleY)) {
+						spotX = cx;
+						spotY = cy;
+						return true;
+					}
+				}
+			}
+			active.retire(a);
+		}
+		// nothing active, the ground is empty or freshly cleared
+		return randomSpot(scaleX, scaleY, random);
+	}
+
+	/**
+	 * The active list for a kitty size, a size not asked for before, or asked for again after kitties have
+	 * wandered, starts with every kitty placed
+	 */
+	private Active active(double scaleX, double scaleY, ArrayList<Active> lists) {
+		for (Active active : lists) {
+			if (active.scaleX == scaleX && active.scaleY == scaleY) {
+				if (active.stale) {
+					active.clear();
+					grid.query(minX, minY, maxX, maxY, active::add);
+				}
+				return active;
+			}
+		}
+		Active active = new Active(scaleX, scaleY);
+		grid.query(minX, minY, maxX, maxY, active::add);
+		lists.add(active);
+		return active;
+	}
+
+	private boolean randomSpot(double scaleX, double scaleY, SplittableRandom random) {
+		for (int i = 0; i < ATTEMPTS; i++) {
+			double cx = minX + random.nextDouble() * (maxX - minX);
+			double cy = minY + random.nextDouble() * (maxY - minY);
+			if (isClear(cx, cy, scaleX, scaleY)) {
+				spotX = cx;
+				spotY = cy;
+				return true;
+			}
+		}
+		return false;
+	}
+}
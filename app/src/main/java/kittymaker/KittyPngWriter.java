@@ -0,0 +1,213 @@
+package kittymaker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * KittyPngWriter
+ * Streams an opaque 8 bit RGB PNG out a band of rows at a time, so the image never has to be in memory whole.
+ * Bands are filtered and deflated independently with compress(), which only reads its arguments and may run
+ * on any thread, several at once. Each band ends on a byte boundary (a sync flush) so the compressed bands
+ * simply follow one another in the zlib stream, and their checksums are combined as they are written.
+ * Bands must be written in order, top to bottom, and the last one must be compressed as the last.
+ */
+public class KittyPngWriter implements Closeable {
+	private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+	// zlib header: deflate with a 32K window, default compression, no dictionary
+	private static final byte[] ZLIB_HEADER = {0x78, (byte) 0x9C};
+	private static final int ADLER_BASE = 65521;
+	// PNG filter types
+	private static final int FILTER_SUB = 1;
+	private final DataOutputStream out;
+	private final int width;
+	private final int height;
+	private int rowsWritten;
+	private long adler = 1;
+
+	/**
+	 * Band
+	 * One band of rows, filtered and deflated
+	 */
+	public static final class Band {
+		private final byte[] data;
+		private final int rows;
+		private final long length;
+		private final long adler;
+
+		private Band(byte[] data, int rows, long length, long adler) {
+			this.data = data;
+			this.rows = rows;
+			this.length = length;
+			this.adler = adler;
+		}
+
+		/**
+		 * @return int - compressed size in bytes
+		 */
+		public int getCompressedSize() {
+			return data.length;
+		}
+	}
+
+	/**
+	 * KittyPngWriter
+	 * Class Constructor, writes the PNG signature and header
+	 * @param out OutputStream - where the PNG goes, not closed by close()
+	 * @param width int - image width in pixels
+	 * @param height int - image height in pixels
+	 * @throws IOException if the header cannot be written
+	 */
+	public KittyPngWriter(OutputStream out, int width, int height) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+		}
+		this.out = new DataOutputStream(out);
+		this.width = width;
+		this.height = height;
+		this.out.write(SIGNATURE);
+		ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+		DataOutputStream fields = new DataOutputStream(header);
+		fields.writeInt(width);
+		fields.writeInt(height);
+		// 8 bits per sample, truecolor, deflate, adaptive filtering, no interlace
+		fields.write(new byte[] {8, 2, 0, 0, 0});
+		chunk("IHDR", header.toByteArray(), header.size());
+		// image data may be split over any number of chunks, the zlib stream starts in one of its own
+		chunk("IDAT", ZLIB_HEADER, ZLIB_HEADER.length);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Filter and deflate a band of rows, on any thread
+	 * Rows use the Sub filter, which only looks along the row, so bands need nothing from their neighbours.
+	 * @param pixels int[] - rows of RGB pixels (the alpha byte is ignored), width pixels each
+	 * @param rows int - number of rows
+	 * @param last boolean - true for the bottom band of the image
+	 * @return Band - to be passed to write() in order
+	 */
+	public Band compress(int[] pixels, int rows, boolean last) {
+		int stride = 1 + width * 3;
+		byte[] filtered = new byte[rows * stride];
+		for (int r = 0; r < rows; r++) {
+			int o = r * stride;
+			int p = r * width;
+			filtered[o++] = FILTER_SUB;
+			int previous = 0;
+			for (int x = 0; x < width; x++) {
+				int rgb = pixels[p + x];
+				filtered[o++] = (byte) ((rgb >> 16) - (previous >> 16));
+				filtered[o++] = (byte) ((rgb >> 8) - (previous >> 8));
+				filtered[o++] = (byte) (rgb - previous);
+				previous = rgb;
+			}
+		}
+		Adler32 checksum = new Adler32();
+		checksum.update(filtered);
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(filtered.length / 4 + 64);
+		byte[] buffer = new byte[65536];
+		try {
+			deflater.setInput(filtered);
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					compressed.write(buffer, 0, deflater.deflate(buffer));
+				}
+			} else {
+				// a sync flush is only complete once it leaves room in the buffer
+				int n;
+				do {
+					n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+					compressed.write(buffer, 0, n);
+				} while (n == buffer.length);
+			}
+		} finally {
+			deflater.end();
+		}
+		return new Band(compressed.toByteArray(), rows, filtered.length, checksum.getValue());
+	}
+
+	/**
+	 * Write the next band, after the last one the image is complete
+	 * @param band Band - compressed with compress(), bands in order top to bottom
+	 * @throws IOException if the band cannot be written
+	 */
+	public void write(Band band) throws IOException {
+		if (rowsWritten + band.rows > height) {
+			throw new IllegalStateException("More rows than the image has");
+		}
+		chunk("IDAT", band.data, band.data.length);
+		adler = combineAdler(adler, band.adler, band.length);
+		rowsWritten += band.rows;
+		if (rowsWritten == height) {
+			byte[] trailer = {(byte) (adler >>> 24), (byte) (adler >>> 16), (byte) (adler >>> 8), (byte) adler};
+			chunk("IDAT", trailer, trailer.length);
+			chunk("IEND", new byte[0], 0);
+			out.flush();
+		}
+	}
+
+	/**
+	 * @return boolean - true once every row has been written
+	 */
+	public boolean isComplete() {
+		return rowsWritten == height;
+	}
+
+	/**
+	 * Flush the stream, the underlying stream is left open
+	 */
+	@Override
+	public void close() throws IOException {
+		out.flush();
+	}
+
+	private void chunk(String type, byte[] data, int length) throws IOException {
+		byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+		CRC32 crc = new CRC32();
+		crc.update(typeBytes);
+		crc.update(data, 0, length);
+		out.writeInt(length);
+		out.write(typeBytes);
+		out.write(data, 0, length);
+		out.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * Checksum of two runs of bytes one after the other, from the checksum of each (as zlib's adler32_combine)
+	 */
+	private static long combineAdler(long first, long second, long secondLength) {
+		long remainder = secondLength % ADLER_BASE;
+		long sum1 = first & 0xFFFF;
+		long sum2 = (remainder * sum1) % ADLER_BASE;
+		sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+		sum2 += ((first >>> 16) & 0xFFFF) + ((second >>> 16) & 0xFFFF) + ADLER_BASE - remainder;
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum1 >= ADLER_BASE) {
+			sum1 -= ADLER_BASE;
+		}
+		if (sum2 >= (ADLER_BASE << 1)) {
+			sum2 -= (ADLER_BASE << 1);
+		}
+		if (sum2 >= ADLER_BASE) {
+			sum2 -= ADLER_BASE;
+		}
+		return sum1 | (sum2 << 16);
+	}
+}
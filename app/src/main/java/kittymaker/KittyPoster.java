@@ -0,0 +1,342 @@
+package kittymaker;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * KittyPoster
+ * Renders a scene far larger than the screen, e.g. 20000x13333 for print, straight to a PNG file.
+ * The image is cut into bands of rows and each band into tiles. Tiles are rasterised in parallel on the common
+ * pool with Java2D, from a copy of the model's kitties and the scenery shapes, so nothing waits on the JavaFX
+ * application thread. Each finished band is compressed on the pool too and written in order by
+ * KittyPngWriter, and only a few bands are ever in flight, so the heap used stays about the same whatever
+ * the size of the poster.
+ */
+public class KittyPoster {
+	// pixels per band, a band of a 20000 pixel wide poster is about 100 rows
+	private static final int BAND_PIXELS = 1 << 21;
+	private static final int TILE_WIDTH = 512;
+	// kitties whose body is less than this many pixels high are drawn as just their body
+	private static final double BODY_ONLY_PIXELS = 4;
+	private static final int BACKGROUND = 0xFFFFFF;
+	private final double worldWidth;
+	private final double worldHeight;
+	private final double sceneryScale;
+	// scenery shapes in scenery coordinates, painted in order
+	private final ArrayList<Shape> sceneryShapes = new ArrayList<Shape>();
+	private final ArrayList<Color> sceneryFills = new ArrayList<Color>();
+	private final ArrayList<Color> sceneryStrokes = new ArrayList<Color>();
+	private final ArrayList<BasicStroke> sceneryStrokeWidths = new ArrayList<BasicStroke>();
+	// visible kitties in draw order, indexed by position in these arrays
+	private final int count;
+	private final double[] posX;
+	private final double[] posY;
+	private final double[] scaleX;
+	private final double[] scaleY;
+	private final int[] mainColor;
+	private final int[] eyeColor;
+	private final KittyGrid grid;
+
+	/**
+	 * KittyPoster
+	 * Class Constructor, copies the visible kitties out of the model so it can change while the poster renders
+	 * @param model KittySceneModel - scene to render
+	 * @param sceneryScale double - world units per scenery unit, the scenery is stretched over the world
+	 */
+	public KittyPoster(KittySceneModel model, double sceneryScale) {
+		this.sceneryScale = sceneryScale;
+		worldWidth = model.getWorldWidth();
+		worldHeight = model.getWorldHeight();
+		synchronized (model) {
+			KittyStore store = model.getStore();
+			int visible = 0;
+			for (int i = 0; i < store.size(); i++) {
+				if (store.isVisible(i)) {
+					visible++;
+				}
+			}
+			count = visible;
+			posX = new double[count];
+			posY = new double[count];
+			scaleX = new double[count];
+			scaleY = new double[count];
+			mainColor = new int[count];
+			eyeColor = new int[count];
+			int k = 0;
+			for (int i = 0; i < store.size(); i++) {
+				if (store.isVisible(i)) {
+					posX[k] = store.getX(i);
+					posY[k] = store.getY(i);
+					scaleX[k] = store.getScaleX(i);
+					scaleY[k] = store.getScaleY(i);
+					mainColor[k] = store.getMainColor(i);
+					eyeColor[k] = store.getEyeColor(i);
+					k++;
+				}
+			}
+		}
+		grid = new KittyGrid(worldWidth, worldHeight, 180, 80);
+		for (int k = 0; k < count; k++) {
+			grid.insert(k, posX[k], posY[k], 90 * scaleX[k], 40 * scaleY[k]);
+		}
+	}
+
+	/**
+	 * Add a filled polygon to the scenery, painted over what was added before it
+	 * @param points double[] - {x, y} runs in scenery coordinates
+	 * @param fill int - ARGB fill color
+	 * @param stroke int - ARGB outline color, 0 for none
+	 * @param strokeWidth double - outline width
+	 */
+	public void addSceneryPolygon(double[] points, int fill, int stroke, double strokeWidth) {
+		Path2D.Double path = new Path2D.Double();
+		path.moveTo(points[0], points[1]);
+		for (int i = 2; i < points.length; i += 2) {
+			path.lineTo(points[i], points[i+1]);
+		}
+		path.closePath();
+		addScenery(path, fill, stroke, strokeWidth);
+	}
+
+	/**
+	 * Add a filled ellipse to the scenery
+	 * @param centerX double - center X in scenery coordinates
+	 * @param centerY double - center Y
+	 * @param radiusX double - horizontal radius
+	 * @param radiusY double - vertical radius
+	 * @param fill int - ARGB fill color
+	 */
+	public void addSceneryEllipse(double centerX, double centerY, double radiusX, double radiusY, int fill) {
+		addScenery(new Ellipse2D.Double(centerX - radiusX, centerY - radiusY, radiusX * 2, radiusY * 2), fill, 0, 0);
+	}
+
+	/**
+	 * Add a filled rectangle to the scenery
+	 * @param x double - left edge in scenery coordinates
+	 * @param y double - top edge
+	 * @param width double - width
+	 * @param height double - height
+	 * @param fill int - ARGB fill color
+	 */
+	public void addSceneryRect(double x, double y, double width, double height, int fill) {
+		addScenery(new Rectangle2D.Double(x, y, width, height), fill, 0, 0);
+	}
+
+	private void addScenery(Shape shape, int fill, int stroke, double strokeWidth) {
+		sceneryShapes.add(shape);
+		sceneryFills.add(new Color(fill, true));
+		sceneryStrokes.add((stroke != 0 && strokeWidth > 0) ? new Color(stroke, true) : null);
+		sceneryStrokeWidths.add(new BasicStroke((float) strokeWidth));
+	}
+
+	/**
+	 * Render the whole world to a PNG file on a poster thread, the world is stretched to the size asked for
+	 * @param path Path - file to write
+	 * @param width int - poster width in pixels
+	 * @param height int - poster height in pixels
+	 * @return CompletableFuture - completes on the poster thread with the size of the file in bytes
+	 */
+	public CompletableFuture<Long> export(Path path, int width, int height) {
+		CompletableFuture<Long> done = new CompletableFuture<Long>();
+		Thread exporter = new Thread(() -> {
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16)) {
+				write(out, width, height);
+				out.flush();
+				done.complete(Files.size(path));
+			} catch (IOException | RuntimeException e) {
+				done.completeExceptionally((e instanceof CompletionException && e.getCause() != null) ? e.getCause() : e);
+			}
+		}, "kitty-poster");
+		exporter.setDaemon(true);
+		exporter.start();
+		return done;
+	}
+
+	/**
+	 * Render the whole world as a PNG on the calling thread, with the tiles rendered and bands compressed on
+	 * the common pool. At most one band per core (and no more than four) is held at a time.
+	 * @param out OutputStream - where the PNG goes
+	 * @param width int - poster width in pixels
+	 * @param height int - poster height in pixels
+	 * @throws IOException if the PNG cannot be written
+	 */
+	public void write(OutputStream out, int width, int height) throws IOException {
+		KittyPngWriter png = new KittyPngWriter(out, width, height);
+		int bandRows = Math.max(1, Math.min(height, BAND_PIXELS / width));
+		int bands = (height + bandRows - 1) / bandRows;
+		int inFlight = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+		double sx = width / worldWidth;
+		double sy = height / worldHeight;
+		ArrayDeque<CompletableFuture<KittyPngWriter.Band>> pending = new ArrayDeque<CompletableFuture<KittyPngWriter.Band>>();
+		int next = 0;
+		for (int b = 0; b < bands; b++) {
+			while (next < bands && pending.size() < inFlight) {
+				int top = next * bandRows;
+				pending.add(renderBand(png, top, Math.min(bandRows, height - top), next == bands - 1, sx, sy));
+				next++;
+			}
+			png.write(pending.poll().join());
+		}
+		png.close();
+	}
+
+	/**
+	 * Render the whole world as a PNG entirely on the calling thread, for callers rendering many small images
+	 * at once who keep the cores busy themselves
+	 * @param out OutputStream - where the PNG goes
+	 * @param width int - image width in pixels
+	 * @param height int - image height in pixels
+	 * @throws IOException if the PNG cannot be written
+	 */
+	public void render(OutputStream out, int width, int height) throws IOException {
+		KittyPngWriter png = new KittyPngWriter(out, width, height);
+		int bandRows = Math.max(1, Math.min(height, BAND_PIXELS / width));
+		double sx = width / worldWidth;
+		double sy = height / worldHeight;
+		int[] pixels = new int[bandRows * width];
+		for (int top = 0; top < height; top += bandRows) {
+			int rows = Math.min(bandRows, height - top);
+			for (int left = 0; left < width; left += TILE_WIDTH) {
+				renderTile(pixels, width, left, top, Math.min(TILE_WIDTH, width - left), rows, sx, sy);
+			}
+			png.write(png.compress(pixels, rows, top + rows == height));
+		}
+		png.close();
+	}
+
+	/**
+	 * Rasterise the tiles of one band in parallel, then compress it
+	 */
+	private CompletableFuture<KittyPngWriter.Band> renderBand(KittyPngWriter png, int top, int rows, boolean last, double sx, double sy) {
+		int width = png.getWidth();
+		int[] pixels = new int[rows * width];
+		CompletableFuture<?>[] tiles = new CompletableFuture<?>[(width + TILE_WIDTH - 1) / TILE_WIDTH];
+		for (int t = 0; t < tiles.length; t++) {
+			int left = t * TILE_WIDTH;
+			tiles[t] = CompletableFuture.runAsync(() -> renderTile(pixels, width, left, top, Math.min(TILE_WIDTH, width - left), rows, sx, sy));
+		}
+		return CompletableFuture.allOf(tiles).thenApplyAsync(v -> png.compress(pixels, rows, last));
+	}
+
+	/**
+	 * Rasterise one tile and copy it into its band
+	 */
+	private void renderTile(int[] band, int bandWidth, int left, int top, int width, int height, double sx, double sy) {
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			g.setColor(new Color(BACKGROUND));
+			g.fillRect(0, 0, width, height);
+			g.translate(-left, -top);
+			g.scale(sx, sy);
+			AffineTransform world = g.getTransform();
+			g.scale(sceneryScale, sceneryScale);
+			for (int i = 0; i < sceneryShapes.size(); i++) {
+				g.setColor(sceneryFills.get(i));
+				g.fill(sceneryShapes.get(i));
+				if (sceneryStrokes.get(i) != null) {
+					g.setColor(sceneryStrokes.get(i));
+					g.setStroke(sceneryStrokeWidths.get(i));
+					g.draw(sceneryShapes.get(i));
+				}
+			}
+			g.setTransform(world);
+			paintKitties(g, left / sx, top / sy, (left + width) / sx, (top + height) / sy, sy);
+		} finally {
+			g.dispose();
+		}
+		int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		for (int r = 0; r < height; r++) {
+			System.arraycopy(data, r * width, band, r * bandWidth + left, width);
+		}
+	}
+
+	/**
+	 * Paint every kitty that reaches into an area of the world, in draw order
+	 */
+	private void paintKitties(Graphics2D g, double minX, double minY, double maxX, double maxY, double sy) {
+		// {indexes}, grown as needed, and how many there are
+		int[][] culled = {new int[64]};
+		int[] culledCount = {0};
+		// kitty parts reach past the bounding ellipse by at most 15 by 52 per unit of scale, scales go up to 2
+		grid.query(minX - 30, minY - 104, maxX + 30, maxY + 104, k -> {
+			if (culledCount[0] == culled[0].length) {
+				culled[0] = Arrays.copyOf(culled[0], culledCount[0] * 2);
+			}
+			culled[0][culledCount[0]++] = k;
+		});
+		int n = culledCount[0];
+		int[] order = culled[0];
+		Arrays.sort(order, 0, n);
+		Ellipse2D.Double ellipse = new Ellipse2D.Double();
+		Path2D.Double ear = new Path2D.Double();
+		Line2D.Double line = new Line2D.Double();
+		for (int c = 0; c < n; c++) {
+			int k = order[c];
+			KittyTemplate t = KittyTemplate.of(scaleX[k], scaleY[k]);
+			double x = posX[k];
+			double y = posY[k];
+			Color main = new Color(mainColor[k]);
+			g.setColor(main);
+			if (40 * scaleY[k] * sy < BODY_ONLY_PIXELS) {
+				double[] fur = t.getFurEllipses();
+				// the body is the second fur ellipse
+				fillEllipse(g, ellipse, x + fur[4], y + fur[5], fur[6], fur[7]);
+				continue;
+			}
+			fillEllipses(g, ellipse, t.getPawEllipses(), x, y);
+			fillEllipses(g, ellipse, t.getFurEllipses(), x, y);
+			double[] ears = t.getEarPoints();
+			for (int i = 0; i < ears.length; i += 6) {
+				ear.reset();
+				ear.moveTo(x + ears[i], y + ears[i+1]);
+				ear.lineTo(x + ears[i+2], y + ears[i+3]);
+				ear.lineTo(x + ears[i+4], y + ears[i+5]);
+				ear.closePath();
+				g.fill(ear);
+			}
+			g.setColor(new Color(eyeColor[k]));
+			fillEllipses(g, ellipse, t.getEyeEllipses(), x, y);
+			double[] pupils = t.getPupilLines();
+			g.setColor(Color.BLACK);
+			g.setStroke(new BasicStroke((float) t.getPupilWidth(), BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
+			for (int i = 0; i < pupils.length; i += 4) {
+				line.setLine(x + pupils[i], y + pupils[i+1], x + pupils[i+2], y + pupils[i+3]);
+				g.draw(line);
+			}
+		}
+	}
+
+	private static void fillEllipses(Graphics2D g, Ellipse2D.Double ellipse, double[] ellipses, double x, double y) {
+		for (int i = 0; i < ellipses.length; i += 4) {
+			fillEllipse(g, ellipse, x + ellipses[i], y + ellipses[i+1], ellipses[i+2], ellipses[i+3]);
+		}
+	}
+
+	private static void fillEllipse(Graphics2D g, Ellipse2D.Double ellipse, double cx, double cy, double rx, double ry) {
+		ellipse.setFrame(cx - rx, cy - ry, rx * 2, ry * 2);
+		g.fill(ellipse);
+	}
+}
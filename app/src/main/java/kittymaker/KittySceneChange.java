@@ -0,0 +1,99 @@
+package kittymaker;
+
+/**
+ * KittySceneChange
+ * Everything that happened to a KittySceneModel since the last batch, coalesced: a kitty added and removed
+ * again in the same batch is not reported at all, one added and then moved is only reported as added, and a
+ * kitty changed several times is reported once. A removed id may come back in the same batch as a new kitty
+ * (ids are recycled), it is then both removed and added, and should be handled in that order.
+ * Changed kitties moved or were shown or hidden, their position at the start of the batch is kept so views
+ * can clear where they were. When moved is set every kitty may have moved and no per kitty changes are given
+ * for that.
+ */
+public final class KittySceneChange {
+	private final int[] added;
+	private final int[] removed;
+	private final int[] changed;
+	private final double[] changedFromX;
+	private final double[] changedFromY;
+	private final boolean moved;
+	private final boolean background;
+	private final boolean choices;
+
+	KittySceneChange(int[] added, int[] removed, int[] changed, double[] changedFromX, double[] changedFromY,
+			boolean moved, boolean background, boolean choices) {
+		this.added = added;
+		this.removed = removed;
+		this.changed = changed;
+		this.changedFromX = changedFromX;
+		this.changedFromY = changedFromY;
+		this.moved = moved;
+		this.background = background;
+		this.choices = choices;
+	}
+
+	/**
+	 * @return int[] - ids of new kitties, in the order they were added
+	 */
+	public int[] getAdded() {
+		return added;
+	}
+
+	/**
+	 * @return int[] - ids of removed kitties
+	 */
+	public int[] getRemoved() {
+		return removed;
+	}
+
+	/**
+	 * @return int[] - ids of kitties that moved or were shown or hidden
+	 */
+	public int[] getChanged() {
+		return changed;
+	}
+
+	/**
+	 * @param i int - index into getChanged()
+	 * @return double - center X of the kitty before the batch
+	 */
+	public double getChangedFromX(int i) {
+		return changedFromX[i];
+	}
+
+	/**
+	 * @param i int - index into getChanged()
+	 * @return double - center Y of the kitty before the batch
+	 */
+	public double getChangedFromY(int i) {
+		return changedFromY[i];
+	}
+
+	/**
+	 * @return boolean - true if the wandering simulation moved every kitty
+	 */
+	public boolean isMoved() {
+		return moved;
+	}
+
+	/**
+	 * @return boolean - true if the night, moon or pyramid changed
+	 */
+	public boolean isBackgroundChanged() {
+		return background;
+	}
+
+	/**
+	 * @return boolean - true if the kitty creator choices changed
+	 */
+	public boolean isChoicesChanged() {
+		return choices;
+	}
+
+	/**
+	 * @return boolean - true if there is nothing to report
+	 */
+	public boolean isEmpty() {
+		return added.length == 0 && removed.length == 0 && changed.length == 0 && !moved && !background && !choices;
+	}
+}
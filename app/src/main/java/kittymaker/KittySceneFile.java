@@ -0,0 +1,180 @@
+package kittymaker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * KittySceneFile
+ * Binary scene files: a fixed header followed by one fixed size record per kitty, little endian, read and
+ * written through memory mapped windows of the file so even very large scenes never sit in the heap whole.
+ *
+ * Header, 32 bytes: int magic "KTYS", short version, short background flags, int record size,
+ * long kitty count, 12 bytes reserved.
+ * Record, 36 bytes: double x, double y, float scaleX, float scaleY, int main color (ARGB),
+ * int eye color (ARGB), int flags (bit 0 visible).
+ * Records are in draw order. Readers must reject versions they do not know, and skip any record bytes past
+ * the fields they know when a later version makes records longer.
+ */
+public final class KittySceneFile {
+	public static final int MAGIC = 0x4B545953;
+	public static final short VERSION = 1;
+	public static final int HEADER_BYTES = 32;
+	public static final int RECORD_BYTES = 36;
+	// background flags
+	public static final int NIGHT = 1;
+	public static final int MOON = 2;
+	public static final int PYRAMID = 4;
+	// record flags
+	private static final int VISIBLE = 1;
+	// records mapped at a time
+	private static final int WINDOW_RECORDS = 1 << 20;
+
+	private KittySceneFile() {
+	}
+
+	/**
+	 * Write a scene, replacing the file
+	 * @param path Path - file to write
+	 * @param store KittyStore - the kitties
+	 * @param backgroundFlags int - NIGHT, MOON and PYRAMID bits
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, KittyStore store, int backgroundFlags) throws IOException {
+		int count = store.size();
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putShort(VERSION).putShort((short) backgroundFlags).putInt(RECORD_BYTES).putLong(count);
+			for (int from = 0; from < count; from += WINDOW_RECORDS) {
+				int records = Math.min(WINDOW_RECORDS, count - from);
+				MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_BYTES + (long) from * RECORD_BYTES, (long) records * RECORD_BYTES);
+				window.order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = from; i < from + records; i++) {
+					window.putDouble(store.getX(i))
+							.putDouble(store.getY(i))
+							.putFloat((float) store.getScaleX(i))
+							.putFloat((float) store.getScaleY(i))
+							.putInt(store.getMainColor(i))
+							.putInt(store.getEyeColor(i))
+							.putInt(store.isVisible(i) ? VISIBLE : 0);
+				}
+				window.force();
+			}
+			header.force();
+		}
+	}
+
+	/**
+	 * Open a scene for reading
+	 * @param path Path - file to read
+	 * @return Reader - positioned at the first kitty
+	 * @throws IOException if the file cannot be read or is not a scene this version understands
+	 */
+	public static Reader open(Path path) throws IOException {
+		return new Reader(FileChannel.open(path, StandardOpenOption.READ));
+	}
+
+	/**
+	 * Reader
+	 * Streams the kitties of a scene file into batches, a window of the file at a time
+	 */
+	public static final class Reader implements Closeable {
+		private final FileChannel channel;
+		private final int backgroundFlags;
+		private final int recordBytes;
+		private final long count;
+		private long next;
+		private MappedByteBuffer window;
+		private long windowStart;
+		private long windowEnd;
+
+		private Reader(FileChannel channel) throws IOException {
+			this.channel = channel;
+			try {
+				if (channel.size() < HEADER_BYTES) {
+					throw new IOException("Not a kitty scene file");
+				}
+				MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+				header.order(ByteOrder.LITTLE_ENDIAN);
+				if (header.getInt() != MAGIC) {
+					throw new IOException("Not a kitty scene file");
+				}
+				short version = header.getShort();
+				if (version < 1 || version > VERSION) {
+					throw new IOException("Unsupported kitty scene file version " + version);
+				}
+				backgroundFlags = header.getShort();
+				recordBytes = header.getInt();
+				count = header.getLong();
+				if (recordBytes < RECORD_BYTES || count < 0 || channel.size() < HEADER_BYTES + count * recordBytes) {
+					throw new IOException("Kitty scene file is truncated or corrupt");
+				}
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		public int getBackgroundFlags() {
+			return backgroundFlags;
+		}
+
+		/**
+		 * @return long - number of kitties in the file
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return long - number of kitties not read yet
+		 */
+		public long getRemaining() {
+			return count - next;
+		}
+
+		/**
+		 * Read the next kitties
+		 * @param max int - most kitties to read
+		 * @return KittyBatch - the kitties read, null once the file has been read
+		 * @throws IOException if the file cannot be read
+		 */
+		public KittyBatch next(int max) throws IOException {
+			int records = (int) Math.min(max, count - next);
+			if (records <= 0) {
+				return null;
+			}
+			KittyBatch batch = KittyBatch.allocate(records);
+			for (int i = 0; i < records; i++, next++) {
+				if (next >= windowEnd) {
+					mapWindow();
+				}
+				int at = (int) ((next - windowStart) * recordBytes);
+				batch.set(i, window.getDouble(at), window.getDouble(at + 8),
+						window.getFloat(at + 16), window.getFloat(at + 20),
+						window.getInt(at + 24), window.getInt(at + 28),
+						(window.getInt(at + 32) & VISIBLE) != 0);
+			}
+			return batch;
+		}
+
+		private void mapWindow() throws IOException {
+			windowStart = next;
+			windowEnd = Math.min(count, next + WINDOW_RECORDS);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + windowStart * recordBytes, (windowEnd - windowStart) * recordBytes);
+			window.order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		@Override
+		public void close() throws IOException {
+			window = null;
+			channel.close();
+		}
+	}
+}
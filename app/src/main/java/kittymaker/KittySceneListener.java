@@ -0,0 +1,14 @@
+package kittymaker;
+
+/**
+ * KittySceneListener
+ * Told about each batch of changes to a KittySceneModel, on the thread that flushes the model and with the
+ * model locked, so the model can be read consistently but the listener must not wait on other threads.
+ */
+public interface KittySceneListener {
+	/**
+	 * @param model KittySceneModel - the model that changed
+	 * @param change KittySceneChange - what changed since the last batch
+	 */
+	void sceneChanged(KittySceneModel model, KittySceneChange change);
+}
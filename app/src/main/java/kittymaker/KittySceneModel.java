@@ -0,0 +1,561 @@
+package kittymaker;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * KittySceneModel
+ * Everything a Kitty Maker scene is, with no JavaFX in it: the kitties (store, spatial grid, placer and
+ * wandering simulation), the background toggles and the kitty creator's choices. Views and harnesses read
+ * it and change it through its methods, it never calls back into a view except through listeners.
+ *
+ * Every method locks the model, so it can be changed from any thread. Readers that go through the store,
+ * grid or motion directly should hold the lock (synchronized on the model) if other threads may be changing
+ * it. Changes are not announced one by one: they pile up, coalesced, until flush() hands them to the
+ * listeners as one KittySceneChange, e.g. once per animation pulse.
+ *
+ * Kitties created, deleted, shown and hidden and background toggles are recorded in a KittyHistory, which can
+ * undo and redo them and bring the scene back to any earlier point.
+ */
+public class KittySceneModel {
+	// room kept clear between new kitties and the edges of the world
+	private static final double MARGIN_LEFT = 50;
+	private static final double MARGIN_RIGHT = 75;
+	private static final double MARGIN_BOTTOM = 75;
+	// pending change of each id, by id
+	private static final byte ADDED = 1;
+	private static final byte REMOVED = 2;
+	private static final byte CHANGED = 3;
+	private static final byte REPLACED = 4;
+	// memory the history may take unless told otherwise
+	private static final long HISTORY_BUDGET = 64L << 20;
+	private final KittyStore store = new KittyStore();
+	private final KittyGrid grid;
+	private final KittyPlacer placer;
+	private final KittyMotion motion;
+	private final double worldWidth;
+	private final double worldHeight;
+	private final double groundTop;
+	private final double spacing;
+	private final int limit;
+	private final SplittableRandom random;
+	// background
+	private boolean night = true;
+	private boolean moon = true;
+	private boolean pyramid = true;
+	// kitty creator choices
+	private boolean tall;
+	private boolean smol;
+	private boolean thicc;
+	private boolean hungry;
+	// changes since the last flush
+	private byte[] states = new byte[16];
+	private double[] fromX = new double[16];
+	private double[] fromY = new double[16];
+	private int[] touched = new int[16];
+	private int touchedCount;
+	private boolean moved;
+	private boolean backgroundChanged;
+	private boolean choicesChanged;
+	private final KittyHistory history;
+	private final CopyOnWriteArrayList<KittySceneListener> listeners = new CopyOnWriteArrayList<KittySceneListener>();
+
+	/**
+	 * KittySceneModel
+	 * Class Constructor
+	 * @param worldWidth double - width of the world
+	 * @param worldHeight double - height of the world
+	 * @param groundTop double - highest point of the ground, new kitties are placed below it
+	 * @param surface DoubleUnaryOperator - top of the ground for a given X, must be safe to call from any thread
+	 * @param spacing double - gap kept between new kitties, 0 lets them overlap
+	 * @param limit int - most kitties there can be
+	 * @param seed long - random seed, the same seed and calls make the same scene
+	 */
+	public KittySceneModel(double worldWidth, double worldHeight, double groundTop, DoubleUnaryOperator surface,
+			double spacing, int limit, long seed) {
+		this.worldWidth = worldWidth;
+		this.worldHeight = worldHeight;
+		this.groundTop = groundTop;
+		this.spacing = spacing;
+		this.limit = limit;
+		random = new SplittableRandom(seed);
+		grid = new KittyGrid(worldWidth, worldHeight, 180, 80);
+		placer = new KittyPlacer(MARGIN_LEFT, groundTop, worldWidth - MARGIN_RIGHT, worldHeight - MARGIN_BOTTOM, spacing, grid, random.nextLong());
+		motion = new KittyMotion(0, worldWidth, worldHeight, surface, random.nextLong());
+		history = new KittyHistory(this, HISTORY_BUDGET);
+	}
+
+	/*
+	 * KITTIES
+	 */
+
+	/**
+	 * Add a kitty with random colors at a free spot on the ground
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return int - id of the new kitty, -1 if the limit is reached or there was no room
+	 */
+	public synchronized int create(double scaleX, double scaleY) {
+		history.step();
+		if (store.size() >= limit || !placer.place(scaleX, scaleY)) {
+			return -1;
+		}
+		return insert(randomARGB(), randomARGB(), placer.getX(), placer.getY(), scaleX, scaleY, true);
+	}
+
+	/**
+	 * Generate a batch of random kitties over the ground on the common pool, seeded from this model
+	 * The batch holds no more kitties than there is room for under the limit now.
+	 * @param count int - number of kitties wanted
+	 * @return CompletableFuture - completes with the batch, which still has to be added with addBatch()
+	 */
+	public synchronized CompletableFuture<KittyBatch> generate(int count) {
+		return KittyBatch.generate(Math.min(count, limit - store.size()), MARGIN_LEFT, groundTop, worldWidth - MARGIN_RIGHT, worldHeight - MARGIN_BOTTOM, random.nextLong());
+	}
+
+	/**
+	 * Add a batch of kitties, growing the columns once
+	 * Kitties past the limit are dropped, as are kitties no room is found for when spacing is on.
+	 * @param batch KittyBatch - generated or loaded kitties
+	 * @param keepPositions boolean - true to keep the batch's positions even with spacing on (loaded scenes)
+	 * @return int[] - id given to each kitty of the batch, -1 where it was dropped
+	 */
+	public synchronized int[] addBatch(KittyBatch batch, boolean keepPositions) {
+		history.step();
+		int[] ids = new int[batch.size()];
+		Arrays.fill(ids, -1);
+		int room = Math.min(batch.size(), limit - store.size());
+		if (room <= 0) {
+			return ids;
+		}
+		store.ensureCapacity(store.size() + room);
+		motion.ensureCapacity(store.size() + room);
+		int added = 0;
+		for (int i = 0; i < batch.size() && added < room; i++) {
+			double scaleX = batch.getScaleX(i);
+			double scaleY = batch.getScaleY(i);
+			double x = batch.getX(i);
+			double y = batch.getY(i);
+			// with spacing on the spot has to be clear of everything placed so far
+			if (spacing > 0 && !keepPositions) {
+				if (!placer.place(scaleX, scaleY)) {
+					if (!placer.reserve(1, 1)) {
+						break;
+					}
+					continue;
+				}
+				x = placer.getX();
+				y = placer.getY();
+			}
+			ids[i] = insert(batch.getMainColor(i), batch.getEyeColor(i), x, y, scaleX, scaleY, batch.isVisible(i));
+			added++;
+		}
+		return ids;
+	}
+
+	private int insert(int main, int eye, double x, double y, double scaleX, double scaleY, boolean visible) {
+		int id = store.add(main, eye, x, y, scaleX, scaleY);
+		indexAdded(id, x, y, scaleX, scaleY, visible);
+		return id;
+	}
+
+	/**
+	 * Put a kitty back under the id it had, for the history
+	 * @param id int - kitty id, must not be in use
+	 * @param main int - packed ARGB main color
+	 * @param eye int - packed ARGB eye color
+	 * @param x double - center X
+	 * @param y double - center Y
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @param visible boolean - visibility
+	 */
+	synchronized void restore(int id, int main, int eye, double x, double y, double scaleX, double scaleY, boolean visible) {
+		store.restore(id, main, eye, x, y, scaleX, scaleY);
+		indexAdded(id, x, y, scaleX, scaleY, visible);
+	}
+
+	private void indexAdded(int id, double x, double y, double scaleX, double scaleY, boolean visible) {
+		store.setVisible(store.size() - 1, visible);
+		grid.insert(id, x, y, 90 * scaleX, 40 * scaleY);
+		placer.placed(id);
+		motion.add(x, y);
+		touch(id, ADDED);
+		history.kittyAdded(store.size() - 1);
+	}
+
+	/**
+	 * Remove a kitty
+	 * @param id int - kitty id
+	 * @return boolean - true if the kitty existed
+	 */
+	public synchronized boolean remove(int id) {
+		history.step();
+		int index = store.indexOf(id);
+		if (index < 0) {
+			return false;
+		}
+		history.kittyRemoving(index);
+		store.remove(id);
+		motion.remove(index);
+		placer.released(grid.getX(id), grid.getY(id), grid.getRadiusX(id), grid.getRadiusY(id));
+		grid.remove(id);
+		touch(id, REMOVED);
+		return true;
+	}
+
+	/**
+	 * Remove every kitty
+	 */
+	public synchronized void clear() {
+		history.step();
+		for (int i = 0; i < store.size(); i++) {
+			history.kittyRemoving(i);
+			touch(store.idAt(i), REMOVED);
+		}
+		store.clear();
+		grid.clear();
+		motion.clear();
+		placer.reset();
+	}
+
+	/**
+	 * Move a kitty's center
+	 * @param id int - kitty id
+	 * @param x double - new center X
+	 * @param y double - new center Y
+	 */
+	public synchronized void move(int id, double x, double y) {
+		int index = store.indexOf(id);
+		if (index < 0) {
+			return;
+		}
+		touch(id, CHANGED);
+		placer.released(grid.getX(id), grid.getY(id), grid.getRadiusX(id), grid.getRadiusY(id));
+		store.setPosition(index, x, y);
+		motion.setPosition(index, x, y);
+		grid.move(id, x, y);
+		placer.placed(id);
+	}
+
+	/**
+	 * Show or hide a kitty
+	 * @param id int - kitty id
+	 * @param x boolean - visibility
+	 */
+	public synchronized void setVisible(int id, boolean x) {
+		history.step();
+		int index = store.indexOf(id);
+		if (index < 0 || store.isVisible(index) == x) {
+			return;
+		}
+		history.visibilityChanged(id, x);
+		touch(id, CHANGED);
+		store.setVisible(index, x);
+	}
+
+	/**
+	 * Advance the wandering simulation and write the new positions back
+	 * @param steps int - fixed steps to run
+	 */
+	public synchronized void step(int steps) {
+		if (steps <= 0 || store.size() == 0) {
+			return;
+		}
+		for (int s = 0; s < steps; s++) {
+			motion.step();
+		}
+		for (int i = 0; i < store.size(); i++) {
+			double x = motion.getX(i);
+			double y = motion.getY(i);
+			store.setPosition(i, x, y);
+			grid.move(store.idAt(i), x, y);
+		}
+		placer.moved();
+		moved = true;
+	}
+
+	/**
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return boolean - true if a kitty of that scale could still be created
+	 */
+	public synchronized boolean hasRoom(double scaleX, double scaleY) {
+		return store.size() < limit && placer.hasRoom(scaleX, scaleY);
+	}
+
+	public synchronized int size() {
+		return store.size();
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public double getWorldWidth() {
+		return worldWidth;
+	}
+
+	public double getWorldHeight() {
+		return worldHeight;
+	}
+
+	/**
+	 * The kitties, read with the model locked when other threads may change it
+	 * @return KittyStore
+	 */
+	public KittyStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Kitty bounding ellipses by id, read with the model locked when other threads may change it
+	 * @return KittyGrid
+	 */
+	public KittyGrid getGrid() {
+		return grid;
+	}
+
+	/**
+	 * Undo, redo and seeking, through the model's own lock
+	 * @return KittyHistory
+	 */
+	public KittyHistory getHistory() {
+		return history;
+	}
+
+	/*
+	 * BACKGROUND
+	 */
+
+	public synchronized boolean isNight() {
+		return night;
+	}
+
+	public synchronized boolean isMoonVisible() {
+		return moon;
+	}
+
+	public synchronized boolean isPyramidVisible() {
+		return pyramid;
+	}
+
+	public synchronized void setNight(boolean x) {
+		int flags = getBackgroundFlags();
+		setBackgroundFlags(x ? flags | KittySceneFile.NIGHT : flags & ~KittySceneFile.NIGHT);
+	}
+
+	public synchronized void setMoonVisible(boolean x) {
+		int flags = getBackgroundFlags();
+		setBackgroundFlags(x ? flags | KittySceneFile.MOON : flags & ~KittySceneFile.MOON);
+	}
+
+	public synchronized void setPyramidVisible(boolean x) {
+		int flags = getBackgroundFlags();
+		setBackgroundFlags(x ? flags | KittySceneFile.PYRAMID : flags & ~KittySceneFile.PYRAMID);
+	}
+
+	/**
+	 * @return int - KittySceneFile NIGHT, MOON and PYRAMID bits
+	 */
+	public synchronized int getBackgroundFlags() {
+		return (night ? KittySceneFile.NIGHT : 0) | (moon ? KittySceneFile.MOON : 0) | (pyramid ? KittySceneFile.PYRAMID : 0);
+	}
+
+	/**
+	 * @param flags int - KittySceneFile NIGHT, MOON and PYRAMID bits
+	 */
+	public synchronized void setBackgroundFlags(int flags) {
+		history.step();
+		int from = getBackgroundFlags();
+		if (from == flags) {
+			return;
+		}
+		history.backgroundChanged(from, flags);
+		night = (flags & KittySceneFile.NIGHT) != 0;
+		moon = (flags & KittySceneFile.MOON) != 0;
+		pyramid = (flags & KittySceneFile.PYRAMID) != 0;
+		backgroundChanged = true;
+	}
+
+	/*
+	 * KITTY CREATOR
+	 */
+
+	/**
+	 * Choose the height of the next kitty created with createChosen()
+	 * @param x boolean - true for tall, false for smol
+	 */
+	public synchronized void chooseTall(boolean x) {
+		tall = x;
+		smol = !x;
+		choicesChanged = true;
+	}
+
+	/**
+	 * Choose the width of the next kitty created with createChosen()
+	 * @param x boolean - true for thicc, false for hungry
+	 */
+	public synchronized void chooseThicc(boolean x) {
+		thicc = x;
+		hungry = !x;
+		choicesChanged = true;
+	}
+
+	public synchronized boolean isTall() {
+		return tall;
+	}
+
+	public synchronized boolean isSmol() {
+		return smol;
+	}
+
+	public synchronized boolean isThicc() {
+		return thicc;
+	}
+
+	public synchronized boolean isHungry() {
+		return hungry;
+	}
+
+	/**
+	 * @return double - horizontal scale of the chosen kitty, 1 until thicc is chosen
+	 */
+	public synchronized double getChosenScaleX() {
+		return thicc ? 2 : 1;
+	}
+
+	/**
+	 * @return double - vertical scale of the chosen kitty, 1 until tall is chosen
+	 */
+	public synchronized double getChosenScaleY() {
+		return tall ? 2 : 1;
+	}
+
+	/**
+	 * Create the chosen kitty if both a height and a width were chosen, then clear the choices
+	 * @return int - id of the new kitty, -1 if none was created
+	 */
+	public synchronized int createChosen() {
+		int id = -1;
+		if ((tall || smol) && (thicc || hungry)) {
+			id = create(getChosenScaleX(), getChosenScaleY());
+		}
+		tall = false;
+		smol = false;
+		thicc = false;
+		hungry = false;
+		choicesChanged = true;
+		return id;
+	}
+
+	/*
+	 * CHANGES
+	 */
+
+	public void addListener(KittySceneListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(KittySceneListener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Hand everything changed since the last flush to the listeners as one batch
+	 * @return boolean - false if nothing had changed
+	 */
+	public synchronized boolean flush() {
+		if (touchedCount == 0 && !moved && !backgroundChanged && !choicesChanged) {
+			return false;
+		}
+		// an id touched again after its changes cancelled out is listed twice, the state is negated once
+		// it has been counted so it only counts once
+		int[] counts = new int[REPLACED + 1];
+		for (int i = 0; i < touchedCount; i++) {
+			int id = touched[i];
+			if (states[id] > 0) {
+				counts[states[id]]++;
+				states[id] = (byte) -states[id];
+			}
+		}
+		int[] added = new int[counts[ADDED] + counts[REPLACED]];
+		int[] removed = new int[counts[REMOVED] + counts[REPLACED]];
+		int[] changed = new int[counts[CHANGED]];
+		double[] changedFromX = new double[changed.length];
+		double[] changedFromY = new double[changed.length];
+		int a = 0;
+		int r = 0;
+		int c = 0;
+		for (int i = 0; i < touchedCount; i++) {
+			int id = touched[i];
+			if (states[id] >= 0) {
+				continue;
+			}
+			byte state = (byte) -states[id];
+			states[id] = 0;
+			if (state == ADDED || state == REPLACED) {
+				added[a++] = id;
+			}
+			if (state == REMOVED || state == REPLACED) {
+				removed[r++] = id;
+			}
+			if (state == CHANGED) {
+				changedFromX[c] = fromX[id];
+				changedFromY[c] = fromY[id];
+				changed[c++] = id;
+			}
+		}
+		KittySceneChange change = new KittySceneChange(added, removed, changed, changedFromX, changedFromY,
+				moved, backgroundChanged, choicesChanged);
+		touchedCount = 0;
+		moved = false;
+		backgroundChanged = false;
+		choicesChanged = false;
+		if (touched.length > 1024 && touched.length > store.size() * 4) {
+			touched = new int[16];
+		}
+		for (KittySceneListener listener : listeners) {
+			listener.sceneChanged(this, change);
+		}
+		return true;
+	}
+
+	/**
+	 * Note a change to a kitty, folding it into what already happened to it since the last flush
+	 */
+	private void touch(int id, byte change) {
+		if (id >= states.length) {
+			int capacity = Math.max(id + 1, states.length * 2);
+			states = Arrays.copyOf(states, capacity);
+			fromX = Arrays.copyOf(fromX, capacity);
+			fromY = Arrays.copyOf(fromY, capacity);
+		}
+		byte state = states[id];
+		if (state == 0) {
+			if (touchedCount == touched.length) {
+				touched = Arrays.copyOf(touched, touchedCount * 2);
+			}
+			touched[touchedCount++] = id;
+			if (change == CHANGED) {
+				int index = store.indexOf(id);
+				fromX[id] = store.getX(index);
+				fromY[id] = store.getY(index);
+			}
+			states[id] = change;
+		} else if (change == ADDED) {
+			// only a removed id can be added again
+			states[id] = REPLACED;
+		} else if (change == REMOVED) {
+			states[id] = (state == ADDED) ? 0 : REMOVED;
+		}
+		// a change to a kitty already added, replaced or changed in this batch adds nothing
+	}
+
+	private int randomARGB() {
+		return KittyStore.argb(1 + random.nextInt(255), 1 + random.nextInt(255), 1 + random.nextInt(255));
+	}
+}
@@ -0,0 +1,260 @@
+package kittymaker;
+
+import java.util.Arrays;
+
+/**
+ * KittyStore
+ * Column oriented storage for every spawned kitty. Each attribute lives in its own primitive array so
+ * a kitty costs a few dozen bytes and the renderers can walk the columns front to back.
+ * Kitties are referred to by a stable integer id, the dense index of a kitty changes when another kitty
+ * is removed (the last kitty is swapped into the hole) so indexes should not be held on to.
+ * Ids of removed kitties are recycled for later kitties, or can be given back to the same kitty with restore().
+ */
+public class KittyStore {
+	private static final int INITIAL_CAPACITY = 16;
+	// number of live kitties
+	private int size;
+	// columns, indexed by dense position
+	private int[] ids = new int[INITIAL_CAPACITY];
+	private double[] posX = new double[INITIAL_CAPACITY];
+	private double[] posY = new double[INITIAL_CAPACITY];
+	private double[] scaleX = new double[INITIAL_CAPACITY];
+	private double[] scaleY = new double[INITIAL_CAPACITY];
+	private int[] mainColor = new int[INITIAL_CAPACITY];
+	private int[] eyeColor = new int[INITIAL_CAPACITY];
+	private boolean[] visible = new boolean[INITIAL_CAPACITY];
+	// id -> dense position, -1 if the id has not been handed out, -2 - slot if it is free at that slot of freeIds
+	private int[] positions = new int[INITIAL_CAPACITY];
+	// ids that have been handed out, and the stack of ids freed by remove
+	private int issuedIds;
+	private int[] freeIds = new int[INITIAL_CAPACITY];
+	private int freeCount;
+
+	/**
+	 * KittyStore
+	 * Class Constructor
+	 */
+	public KittyStore() {
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Add a kitty
+	 * @param main int - packed ARGB main color
+	 * @param eye int - packed ARGB eye color
+	 * @param x double - center X position
+	 * @param y double - center Y position
+	 * @param sx double - horizontal scale
+	 * @param sy double - vertical scale
+	 * @return int - id of the new kitty
+	 */
+	public int add(int main, int eye, double x, double y, double sx, double sy) {
+		int id = nextId();
+		put(id, main, eye, x, y, sx, sy);
+		return id;
+	}
+
+	/**
+	 * Add a kitty under a given id, e.g. to put a removed kitty back as it was
+	 * @param id int - kitty id, must not be in use
+	 * @param main int - packed ARGB main color
+	 * @param eye int - packed ARGB eye color
+	 * @param x double - center X position
+	 * @param y double - center Y position
+	 * @param sx double - horizontal scale
+	 * @param sy double - vertical scale
+	 */
+	public void restore(int id, int main, int eye, double x, double y, double sx, double sy) {
+		if (id < 0 || contains(id)) {
+			throw new IllegalArgumentException("Kitty id in use: " + id);
+		}
+		if (id < issuedIds) {
+			// take it out of the free ids, the last free id fills its slot
+			int slot = -2 - positions[id];
+			int last = freeIds[--freeCount];
+			freeIds[slot] = last;
+			positions[last] = -2 - slot;
+		} else {
+			// ids skipped over are free for later kitties
+			while (issuedIds <= id) {
+				int skipped = issueId();
+				if (skipped < id) {
+					free(skipped);
+				}
+			}
+		}
+		put(id, main, eye, x, y, sx, sy);
+	}
+
+	private void put(int id, int main, int eye, double x, double y, double sx, double sy) {
+		if (size == ids.length) {
+			growColumns(size * 2);
+		}
+		int i = size++;
+		ids[i] = id;
+		posX[i] = x;
+		posY[i] = y;
+		scaleX[i] = sx;
+		scaleY[i] = sy;
+		mainColor[i] = main;
+		eyeColor[i] = eye;
+		visible[i] = true;
+		positions[id] = i;
+	}
+
+	/**
+	 * Make room for more kitties up front, so adding a large batch grows the columns once
+	 * @param capacity int - number of kitties to make room for
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity > ids.length) {
+			growColumns(Math.max(capacity, ids.length * 2));
+		}
+	}
+
+	/**
+	 * Remove a kitty, the last kitty is moved into its position
+	 * @param id int - kitty id
+	 * @return boolean - true if the kitty existed
+	 */
+	public boolean remove(int id) {
+		int i = indexOf(id);
+		if (i < 0) {
+			return false;
+		}
+		int last = --size;
+		if (i != last) {
+			ids[i] = ids[last];
+			posX[i] = posX[last];
+			posY[i] = posY[last];
+			scaleX[i] = scaleX[last];
+			scaleY[i] = scaleY[last];
+			mainColor[i] = mainColor[last];
+			eyeColor[i] = eyeColor[last];
+			visible[i] = visible[last];
+			positions[ids[i]] = i;
+		}
+		free(id);
+		return true;
+	}
+
+	private void free(int id) {
+		if (freeCount == freeIds.length) {
+			freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+		}
+		positions[id] = -2 - freeCount;
+		freeIds[freeCount++] = id;
+	}
+
+	/**
+	 * Remove every kitty
+	 */
+	public void clear() {
+		size = 0;
+		issuedIds = 0;
+		freeCount = 0;
+		Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * @return int - number of live kitties
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param id int - kitty id
+	 * @return int - dense position of the kitty, -1 if there is no such kitty
+	 */
+	public int indexOf(int id) {
+		return (id >= 0 && id < issuedIds && positions[id] >= 0) ? positions[id] : -1;
+	}
+
+	/**
+	 * @param id int - kitty id
+	 * @return boolean - true if the kitty exists
+	 */
+	public boolean contains(int id) {
+		return indexOf(id) >= 0;
+	}
+
+	public int idAt(int index) {
+		return ids[index];
+	}
+
+	public double getX(int index) {
+		return posX[index];
+	}
+
+	public double getY(int index) {
+		return posY[index];
+	}
+
+	public double getScaleX(int index) {
+		return scaleX[index];
+	}
+
+	public double getScaleY(int index) {
+		return scaleY[index];
+	}
+
+	public int getMainColor(int index) {
+		return mainColor[index];
+	}
+
+	public int getEyeColor(int index) {
+		return eyeColor[index];
+	}
+
+	public boolean isVisible(int index) {
+		return visible[index];
+	}
+
+	public void setPosition(int index, double x, double y) {
+		posX[index] = x;
+		posY[index] = y;
+	}
+
+	public void setVisible(int index, boolean x) {
+		visible[index] = x;
+	}
+
+	/**
+	 * Pack a color into an opaque ARGB int
+	 * @param r int - red 0-255
+	 * @param g int - green 0-255
+	 * @param b int - blue 0-255
+	 * @return int - packed color
+	 */
+	public static int argb(int r, int g, int b) {
+		return 0xff000000 | (r & 0xff) << 16 | (g & 0xff) << 8 | (b & 0xff);
+	}
+
+	private int nextId() {
+		if (freeCount > 0) {
+			return freeIds[--freeCount];
+		}
+		return issueId();
+	}
+
+	private int issueId() {
+		if (issuedIds == positions.length) {
+			int old = positions.length;
+			positions = Arrays.copyOf(positions, old * 2);
+			Arrays.fill(positions, old, positions.length, -1);
+		}
+		return issuedIds++;
+	}
+
+	private void growColumns(int capacity) {
+		ids = Arrays.copyOf(ids, capacity);
+		posX = Arrays.copyOf(posX, capacity);
+		posY = Arrays.copyOf(posY, capacity);
+		scaleX = Arrays.copyOf(scaleX, capacity);
+		scaleY = Arrays.copyOf(scaleY, capacity);
+		mainColor = Arrays.copyOf(mainColor, capacity);
+		eyeColor = Arrays.copyOf(eyeColor, capacity);
+		visible = Arrays.copyOf(visible, capacity);
+	}
+}
@@ -0,0 +1,294 @@
+package kittymaker;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * KittyTemplate
+ * The outline of a kitty at one scale, worked out once and shared by every kitty of that scale.
+ * All coordinates are relative to the kitty's center, instances are placed with a translation.
+ * The outline is kept both as coordinate arrays (for immediate mode drawing) and as SVG path
+ * strings (for the scene graph), one per colour: fur, eyes and pupils. The fur path also comes without the ears,
+ * and without the ears and paws, for lower detail levels.
+ */
+public final class KittyTemplate {
+	private static final ConcurrentHashMap<Key, KittyTemplate> CACHE = new ConcurrentHashMap<Key, KittyTemplate>();
+	private final double scaleX;
+	private final double scaleY;
+	// ellipses as {centerX, centerY, radiusX, radiusY} runs
+	private final double[] furEllipses;
+	private final double[] pawEllipses;
+	private final double[] eyeEllipses;
+	// two triangles as {x, y} runs
+	private final double[] earPoints;
+	// two lines as {x1, y1, x2, y2} runs
+	private final double[] pupilLines;
+	private final double pupilWidth;
+	private final String furPath;
+	private final String furNoEarsPath;
+	private final String bodyPath;
+	private final String eyePath;
+	private final String pupilPath;
+	// bounds relative to the center
+	private final double minX;
+	private final double minY;
+	private final double maxX;
+	private final double maxY;
+
+	/**
+	 * Get the shared template for a scale
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 * @return KittyTemplate
+	 */
+	public static KittyTemplate of(double scaleX, double scaleY) {
+		return CACHE.computeIfAbsent(new Key(scaleX, scaleY), k -> new KittyTemplate(k.scaleX, k.scaleY));
+	}
+
+	/**
+	 * KittyTemplate
+	 * Class Constructor, same geometry as the original per shape kitty
+	 * @param scaleX double - horizontal scale
+	 * @param scaleY double - vertical scale
+	 */
+	private KittyTemplate(double scaleX, double scaleY) {
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+		double radiusX = 90 * scaleX;
+		double radiusY = 40 * scaleY;
+		double left = -radiusX;
+		double right = radiusX;
+		double top = -radiusY;
+		double bottom = radiusY;
+
+		furEllipses = new double[] {
+				right - radiusX/8, top, scaleX*12, scaleY*52,
+				0, 0, radiusX, radiusY,
+				left + radiusX/3, top + radiusY/2, scaleX*40, scaleY*30,
+		};
+		pawEllipses = new double[] {
+				left + radiusX/4, bottom - radiusY/4, scaleX*15, scaleY*10,
+				right - radiusX, bottom - radiusY/10, scaleX*15, scaleY*10,
+				left + radiusX/1.75, bottom - radiusY/8, scaleX*15, scaleY*10,
+				right - radiusX/3, bottom - radiusY/6, scaleX*15, scaleY*10,
+		};
+		earPoints = new double[] {
+				-(105*scaleX), -(58*scaleY), -(75*scaleX), -(48*scaleY), -(95*scaleX), -(28*scaleY),
+				-(15*scaleX), -(58*scaleY), -(45*scaleX), -(48*scaleY), -(20*scaleX), -(28*scaleY),
+		};
+		eyeEllipses = new double[] {
+				left + radiusX/8, top + radiusY/2, scaleX*15, scaleY*10,
+				left + radiusX/2, top + radiusY/2, scaleX*15, scaleY*10,
+		};
+		pupilLines = new double[] {
+				left + radiusX/8, top + radiusY/3.5, left + radiusX/8, top + radiusY/1.5,
+				left + radiusX/2, top + radiusY/3.5, left + radiusX/2, top + radiusY/1.5,
+		};
+		pupilWidth = scaleX*4;
+
+		StringBuilder fur = new StringBuilder();
+		appendEllipses(fur, furEllipses);
+		bodyPath = fur.toString();
+		appendEllipses(fur, pawEllipses);
+		furNoEarsPath = fur.toString();
+		appendTriangles(fur, earPoints);
+		furPath = fur.toString();
+		StringBuilder eyes = new StringBuilder();
+		appendEllipses(eyes, eyeEllipses);
+		eyePath = eyes.toString();
+		StringBuilder pupils = new StringBuilder();
+		for (int i = 0; i < pupilLines.length; i += 4) {
+			pupils.append('M').append(num(pupilLines[i])).append(' ').append(num(pupilLines[i+1]))
+					.append('L').append(num(pupilLines[i+2])).append(' ').append(num(pupilLines[i+3]));
+		}
+		pupilPath = pupils.toString();
+
+		double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+		includeEllipses(bounds, furEllipses);
+		includeEllipses(bounds, pawEllipses);
+		includeEllipses(bounds, eyeEllipses);
+		for (int i = 0; i < earPoints.length; i += 2) {
+			include(bounds, earPoints[i], earPoints[i+1], 0);
+		}
+		for (int i = 0; i < pupilLines.length; i += 2) {
+			include(bounds, pupilLines[i], pupilLines[i+1], pupilWidth / 2);
+		}
+		minX = bounds[0];
+		minY = bounds[1];
+		maxX = bounds[2];
+		maxY = bounds[3];
+	}
+
+	public double getScaleX() {
+		return scaleX;
+	}
+
+	public double getScaleY() {
+		return scaleY;
+	}
+
+	/**
+	 * Tail, body and head, shared arrays that must not be modified
+	 * @return double[] - {centerX, centerY, radiusX, radiusY} runs
+	 */
+	public double[] getFurEllipses() {
+		return furEllipses;
+	}
+
+	/**
+	 * @return double[] - the four paws as {centerX, centerY, radiusX, radiusY} runs
+	 */
+	public double[] getPawEllipses() {
+		return pawEllipses;
+	}
+
+	/**
+	 * @return double[] - the two eyes as {centerX, centerY, radiusX, radiusY} runs
+	 */
+	public double[] getEyeEllipses() {
+		return eyeEllipses;
+	}
+
+	/**
+	 * @return double[] - the two ear triangles as {x, y} runs
+	 */
+	public double[] getEarPoints() {
+		return earPoints;
+	}
+
+	/**
+	 * @return double[] - the two pupil lines as {x1, y1, x2, y2} runs
+	 */
+	public double[] getPupilLines() {
+		return pupilLines;
+	}
+
+	public double getPupilWidth() {
+		return pupilWidth;
+	}
+
+	/**
+	 * @return String - SVG path of everything drawn in the main color
+	 */
+	public String getFurPath() {
+		return furPath;
+	}
+
+	/**
+	 * @param detail KittyDetail - detail level
+	 * @return String - SVG path of the parts drawn in the main color at that level
+	 */
+	public String getFurPath(KittyDetail detail) {
+		if (!detail.showsPaws()) {
+			return bodyPath;
+		}
+		return detail.showsEars() ? furPath : furNoEarsPath;
+	}
+
+	/**
+	 * @return String - SVG path of everything drawn in the eye color
+	 */
+	public String getEyePath() {
+		return eyePath;
+	}
+
+	/**
+	 * @return String - SVG path of the pupil strokes
+	 */
+	public String getPupilPath() {
+		return pupilPath;
+	}
+
+	public double getMinX() {
+		return minX;
+	}
+
+	public double getMinY() {
+		return minY;
+	}
+
+	public double getMaxX() {
+		return maxX;
+	}
+
+	public double getMaxY() {
+		return maxY;
+	}
+
+	/*
+	 * Every sub path is wound clockwise on screen so overlapping parts merge under the non-zero fill rule
+	 */
+	private static void appendEllipses(StringBuilder path, double[] ellipses) {
+		for (int i = 0; i < ellipses.length; i += 4) {
+			double cx = ellipses[i];
+			double cy = ellipses[i+1];
+			String rx = num(ellipses[i+2]);
+			String ry = num(ellipses[i+3]);
+			path.append('M').append(num(cx - ellipses[i+2])).append(' ').append(num(cy))
+					.append('A').append(rx).append(' ').append(ry).append(" 0 1 1 ").append(num(cx + ellipses[i+2])).append(' ').append(num(cy))
+					.append('A').append(rx).append(' ').append(ry).append(" 0 1 1 ").append(num(cx - ellipses[i+2])).append(' ').append(num(cy))
+					.append('Z');
+		}
+	}
+
+	private static void appendTriangles(StringBuilder path, double[] points) {
+		for (int i = 0; i < points.length; i += 6) {
+			double area = (points[i]*points[i+3] - points[i+2]*points[i+1])
+					+ (points[i+2]*points[i+5] - points[i+4]*points[i+3])
+					+ (points[i+4]*points[i+1] - points[i]*points[i+5]);
+			int second = (area > 0) ? i+2 : i+4;
+			int third = (area > 0) ? i+4 : i+2;
+			path.append('M').append(num(points[i])).append(' ').append(num(points[i+1]))
+					.append('L').append(num(points[second])).append(' ').append(num(points[second+1]))
+					.append('L').append(num(points[third])).append(' ').append(num(points[third+1]))
+					.append('Z');
+		}
+	}
+
+	private static void includeEllipses(double[] bounds, double[] ellipses) {
+		for (int i = 0; i < ellipses.length; i += 4) {
+			include(bounds, ellipses[i] - ellipses[i+2], ellipses[i+1] - ellipses[i+3], 0);
+			include(bounds, ellipses[i] + ellipses[i+2], ellipses[i+1] + ellipses[i+3], 0);
+		}
+	}
+
+	private static void include(double[] bounds, double x, double y, double pad) {
+		bounds[0] = Math.min(bounds[0], x - pad);
+		bounds[1] = Math.min(bounds[1], y - pad);
+		bounds[2] = Math.max(bounds[2], x + pad);
+		bounds[3] = Math.max(bounds[3], y + pad);
+	}
+
+	private static String num(double x) {
+		return String.format(Locale.ROOT, "%.3f", x);
+	}
+
+	/**
+	 * Key
+	 * Cache key for a pair of scales
+	 */
+	private static final class Key {
+		private final double scaleX;
+		private final double scaleY;
+
+		Key(double scaleX, double scaleY) {
+			this.scaleX = scaleX;
+			this.scaleY = scaleY;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key k = (Key) o;
+			return Double.compare(scaleX, k.scaleX) == 0 && Double.compare(scaleY, k.scaleY) == 0;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(scaleX, scaleY);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package kittymaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javafx.application.Platform;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * KittyControlRegistryTest
+ * Leak regression for the side panel: a million kitties are created and deleted one at a time through the
+ * panel's own list, rows from its cell factory and thumbnail atlas, on the headless Monocle platform. The rows
+ * are attached to the list and laid out again after every change, as the list's skin does with the rows on
+ * screen. Nothing may stay bound to a deleted kitty, and the heap retained after a full collection must stay flat.
+ */
+class KittyControlRegistryTest {
+	private static final int CYCLES = 1000000;
+	private static final int WARMUP = 100000;
+	// rows on screen, more than the kitties alive so some rows are always empty
+	private static final int ROWS = 12;
+	private static final int LIVE = 8;
+	// kitties come in a few colors so most thumbnails are already painted, every hundredth is a new one
+	private static final int COLORS = 64;
+	private static final int NEW_COLOR = 100;
+	// retained heap allowed to grow over the cycles, a leaked row per hundred cycles would be well over this
+	private static final long SLACK_BYTES = 2 << 20;
+
+	@BeforeAll
+	static void startPlatform() throws InterruptedException {
+		if (System.getProperty("glass.platform") == null) {
+			System.setProperty("glass.platform", "Monocle");
+			System.setProperty("monocle.platform", "Headless");
+			System.setProperty("prism.order", "sw");
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		try {
+			Platform.startup(latch::countDown);
+		} catch (IllegalStateException e) {
+			// already started by another test in this JVM
+			latch.countDown();
+		}
+		latch.await();
+		Platform.setImplicitExit(false);
+	}
+
+	@Test
+	void createDeleteCyclesRetainFlatHeap() throws Exception {
+		onFxThread(() -> {
+			KittySceneModel model = new KittySceneModel(1200, 800, 300, x -> 500, 0, LIVE + 1, 1);
+			// the history keeps operations by design, its budget is its own concern
+			model.getHistory().setBudget(0);
+			GeometricScene app = new GeometricScene(Map.of());
+			ListView<Integer> list = app.showSidePanel(model);
+			ListCell<?>[] rows = new ListCell<?>[ROWS];
+			for (int r = 0; r < ROWS; r++) {
+				ListCell<Integer> row = list.getCellFactory().call(list);
+				row.updateListView(list);
+				row.updateIndex(r);
+				rows[r] = row;
+			}
+			KittyBatch kitty = KittyBatch.allocate(1);
+			for (int i = 0; i < LIVE; i++) {
+				add(model, kitty, i);
+			}
+			relayout(rows);
+			assertEquals(LIVE, app.getBoundRows());
+			long baseline = 0;
+			for (int i = 0; i < CYCLES; i++) {
+				if (i == WARMUP) {
+					baseline = retainedHeap();
+				}
+				add(model, kitty, LIVE + i);
+				relayout(rows);
+				// the oldest kitty goes, the last kitty is swapped into its row
+				model.remove(model.getStore().idAt(0));
+				model.flush();
+				relayout(rows);
+			}
+			long retained = retainedHeap();
+			assertEquals(LIVE, app.getBoundRows());
+			// kitties of the same color share a thumbnail
+			assertTrue(app.getShownThumbnails() <= LIVE, app.getShownThumbnails() + " thumbnails shown");
+			for (int r = 0; r < ROWS; r++) {
+				Integer id = (Integer) rows[r].getItem();
+				assertTrue((r < LIVE) ? id != null && model.getStore().contains(id) : id == null, "row " + r + " shows " + id);
+			}
+			assertTrue(app.getPaintedThumbnails() > COLORS, "thumbnails were never evicted");
+			model.clear();
+			model.flush();
+			relayout(rows);
+			assertEquals(0, list.getItems().size());
+			assertEquals(0, app.getBoundRows());
+			assertEquals(0, app.getShownThumbnails());
+			assertTrue(retained - baseline < SLACK_BYTES,
+					"retained heap grew by " + ((retained - baseline) >> 10) + " KB over " + (CYCLES - WARMUP) + " cycles");
+		});
+	}
+
+	/**
+	 * Add the n-th kitty of the run, at a fixed spot
+	 * @param model KittySceneModel - scene to add to
+	 * @param kitty KittyBatch - one kitty batch to reuse
+	 * @param n int - kitty number, picks its color
+	 */
+	private static void add(KittySceneModel model, KittyBatch kitty, int n) {
+		int color = (n % NEW_COLOR == 0) ? n : n % COLORS;
+		kitty.set(0, 600, 600, 1, 1, KittyStore.argb(color & 0xff, (color >> 8) & 0xff, (color >> 16) & 0xff), KittyStore.argb(0, 0, 0), true);
+		int[] ids = model.addBatch(kitty, true);
+		model.flush();
+		assertTrue(ids[0] >= 0, "no room for a kitty");
+	}
+
+	/**
+	 * Lay the rows out again, rebinding any row whose kitty changed
+	 * The list's cells only follow the last part of a change, a row can be left showing a deleted kitty
+	 * until the list's skin lays it out on the next pulse.
+	 * @param rows ListCell[] - rows on screen
+	 */
+	private static void relayout(ListCell<?>[] rows) {
+		for (ListCell<?> row : rows) {
+			row.updateIndex(row.getIndex());
+		}
+	}
+
+	/**
+	 * Run on the application thread and wait for it, rethrowing what it threw
+	 * @param work Runnable - work to run
+	 */
+	private static void onFxThread(Runnable work) throws Exception {
+		FutureTask<Void> task = new FutureTask<Void>(work, null);
+		Platform.runLater(task);
+		try {
+			task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	private static long retainedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
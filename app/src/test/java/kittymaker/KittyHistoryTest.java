@@ -0,0 +1,54 @@
+package kittymaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * KittyHistoryTest
+ * The history budget holds when a single step is too big for it: spawning a scene many times the budget throws
+ * the history away instead of keeping it all, and recording picks up again once the scene is small.
+ */
+class KittyHistoryTest {
+	private static final long BUDGET = 1 << 20;
+	// log buffer capacity and block index on top of what is recorded
+	private static final long SLACK_BYTES = 256 << 10;
+
+	@Test
+	void bulkStepOverBudgetDropsHistory() {
+		KittySceneModel model = new KittySceneModel(12000, 8000, 1000, x -> 7000, 0, 1000000, 1);
+		KittyHistory history = model.getHistory();
+		history.setBudget(BUDGET);
+		for (int i = 0; i < 100; i++) {
+			model.create(1, 1);
+		}
+		assertTrue(history.canUndo());
+
+		// about 17 bytes a kitty logged, three times the budget in one step
+		model.addBatch(model.generate(200000).join(), false);
+		model.flush();
+		assertEquals(200100, model.size());
+		assertTrue(history.isSuspended());
+		assertFalse(history.canUndo());
+		assertTrue(history.getBytes() <= BUDGET + SLACK_BYTES, "history takes " + (history.getBytes() >> 10) + " KB");
+
+		// still too big to snapshot in half the budget, nothing is recorded
+		model.create(1, 1);
+		assertTrue(history.isSuspended());
+		assertFalse(history.canUndo());
+
+		// clearing is one more step too big to record, the empty scene after it starts recording again
+		model.clear();
+		model.create(1, 1);
+		model.create(1, 1);
+		assertFalse(history.isSuspended());
+		assertTrue(history.undo());
+		assertEquals(1, model.size());
+		assertTrue(history.undo());
+		assertEquals(0, model.size());
+		assertFalse(history.undo());
+		assertTrue(history.getBytes() <= BUDGET + SLACK_BYTES, "history takes " + (history.getBytes() >> 10) + " KB");
+	}
+}
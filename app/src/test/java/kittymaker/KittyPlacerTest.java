@@ -0,0 +1,59 @@
+package kittymaker;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * KittyPlacerTest
+ * Replays rebuild a scene from its seed and its events, with none of the room checks the controls make after
+ * every change, so checking for room must never move where kitties are placed.
+ */
+class KittyPlacerTest {
+	private static final long SEED = 42;
+
+	@Test
+	void roomProbesDoNotMovePlacedKitties() {
+		KittySceneModel quiet = build(false);
+		KittySceneModel probed = build(true);
+		KittyStore expected = quiet.getStore();
+		KittyStore actual = probed.getStore();
+		assertTrue(expected.size() > 100, "too few kitties placed to mean anything: " + expected.size());
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.idAt(i), actual.idAt(i));
+			assertEquals(expected.getX(i), actual.getX(i), "x of kitty " + expected.idAt(i));
+			assertEquals(expected.getY(i), actual.getY(i), "y of kitty " + expected.idAt(i));
+		}
+	}
+
+	/**
+	 * Create, spawn and delete kitties until the ground is crowded, the same way each time
+	 * @param probe boolean - true to check for room after every change, as the controls do
+	 * @return KittySceneModel - the scene built
+	 */
+	private static KittySceneModel build(boolean probe) {
+		KittySceneModel model = new KittySceneModel(3600, 2400, 300, x -> 500, 1, 1000, SEED);
+		SplittableRandom random = new SplittableRandom(SEED);
+		for (int i = 0; i < 400; i++) {
+			int action = random.nextInt(10);
+			if (action == 0) {
+				model.addBatch(model.generate(20).join(), false);
+			} else if (action == 1 && model.size() > 0) {
+				model.remove(model.getStore().idAt(random.nextInt(model.size())));
+			} else {
+				model.create(1 + random.nextInt(2), 1 + random.nextInt(2));
+			}
+			model.flush();
+			if (probe) {
+				model.hasRoom(1, 1);
+				model.hasRoom(2, 2);
+				model.hasRoom(1, 2);
+			}
+		}
+		return model;
+	}
+}
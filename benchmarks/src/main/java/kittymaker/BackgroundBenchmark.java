@@ -0,0 +1,62 @@
+package kittymaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.scene.control.CheckBox;
+
+/**
+ * Background Benchmark
+ * Cost of one background toggle through BackgroundEditor and applying it to the view, cycling pyramid,
+ * moon and night.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BackgroundBenchmark {
+	// a multiple of 6 so every checkbox ends up back where it started
+	private static final int BATCH = 96;
+	private SceneFixture fixture;
+	private CheckBox[] toggles;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		fixture = SceneFixture.start(9);
+		toggles = new CheckBox[] {
+				(CheckBox) fixture.lookup("#pyramidCheckBox"),
+				(CheckBox) fixture.lookup("#moonCheckBox"),
+				(CheckBox) fixture.lookup("#nightCheckBox"),
+		};
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void toggle() {
+		FxPlatform.run(() -> {
+			for (int i = 0; i < BATCH; i++) {
+				toggles[i % 3].fire();
+				fixture.app().applyChanges();
+			}
+		});
+	}
+}
@@ -0,0 +1,76 @@
+package kittymaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.RadioButton;
+
+/**
+ * Dispatch Benchmark
+ * Cost of one action event with N kitties alive: the creator radio buttons handled by KittyChoices and
+ * a row's visibility checkbox handled by its KittyRowHandler. Events are fired in batches on the
+ * application thread so the hand over to it is not what gets measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+	private static final int BATCH = 100;
+	@Param({"9", "1000", "100000"})
+	public int kitties;
+	private SceneFixture fixture;
+	private RadioButton tall;
+	private RadioButton smol;
+	private CheckBox visible;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		fixture = SceneFixture.start(kitties);
+		tall = (RadioButton) fixture.lookup("#tall");
+		smol = (RadioButton) fixture.lookup("#smol");
+		visible = FxPlatform.call(fixture::firstRowVisibility);
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void kittyChoices() {
+		FxPlatform.run(() -> {
+			for (int i = 0; i < BATCH; i += 2) {
+				tall.fire();
+				smol.fire();
+			}
+		});
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void rowVisibility() {
+		FxPlatform.run(() -> {
+			for (int i = 0; i < BATCH; i++) {
+				visible.fire();
+			}
+		});
+	}
+}
@@ -0,0 +1,69 @@
+package kittymaker;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import javafx.application.Platform;
+
+/**
+ * FxPlatform
+ * Starts the JavaFX toolkit for the benchmarks and runs work on its application thread.
+ * Unless a platform is chosen with -Dglass.platform the headless Monocle platform and the software
+ * pipeline are used, so no display is needed.
+ */
+final class FxPlatform {
+	private static boolean started;
+
+	private FxPlatform() {
+	}
+
+	/**
+	 * Start the toolkit once per JVM
+	 */
+	static synchronized void start() throws InterruptedException {
+		if (started) {
+			return;
+		}
+		if (System.getProperty("glass.platform") == null) {
+			System.setProperty("glass.platform", "Monocle");
+			System.setProperty("monocle.platform", "Headless");
+			System.setProperty("prism.order", "sw");
+		}
+		CountDownLatch latch = new CountDownLatch(1);
+		Platform.startup(latch::countDown);
+		latch.await();
+		Platform.setImplicitExit(false);
+		started = true;
+	}
+
+	/**
+	 * Run on the application thread and wait for it to finish
+	 * @param work Runnable - work to run
+	 */
+	static void run(Runnable work) {
+		call(() -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Run on the application thread and wait for the result
+	 * @param work Callable - work to run
+	 * @return T - what the work returned
+	 */
+	static <T> T call(Callable<T> work) {
+		FutureTask<T> task = new FutureTask<T>(work);
+		Platform.runLater(task);
+		try {
+			return task.get();
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
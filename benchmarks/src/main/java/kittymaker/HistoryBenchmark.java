@@ -0,0 +1,78 @@
+package kittymaker;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * History Benchmark
+ * Cost of jumping to a random point of a long scene history, and of a single undo and redo, on a headless
+ * KittySceneModel. The history is built from a mix of creates, deletes, visibility and background toggles,
+ * with the odd spawned batch and clear.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryBenchmark {
+	@Param({"1000000"})
+	public int operations;
+	private KittySceneModel model;
+	private KittyHistory history;
+	private SplittableRandom random;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		model = new KittySceneModel(12000, 8000, 1000, x -> 7000, 0, 1000000, 1);
+		history = model.getHistory();
+		history.setBudget(Long.MAX_VALUE);
+		random = new SplittableRandom(2);
+		while (history.getEnd() < operations) {
+			int kind = random.nextInt(100);
+			if (kind < 45) {
+				model.create(1 + random.nextInt(2), 1 + random.nextInt(2));
+			} else if (kind < 75 && model.size() > 0) {
+				model.remove(model.getStore().idAt(random.nextInt(model.size())));
+			} else if (kind < 95 && model.size() > 0) {
+				int index = random.nextInt(model.size());
+				model.setVisible(model.getStore().idAt(index), !model.getStore().isVisible(index));
+			} else if (kind < 99) {
+				model.setNight(random.nextBoolean());
+			} else if (random.nextInt(50) == 0) {
+				model.clear();
+			} else {
+				model.addBatch(model.generate(100).join(), false);
+			}
+			model.flush();
+		}
+	}
+
+	@Benchmark
+	public long seek() {
+		history.seek(history.getFirst() + random.nextLong(history.getEnd() - history.getFirst() + 1));
+		model.flush();
+		return history.getPosition();
+	}
+
+	@Benchmark
+	public long undoRedo() {
+		history.undo();
+		history.redo();
+		model.flush();
+		return history.getPosition();
+	}
+}
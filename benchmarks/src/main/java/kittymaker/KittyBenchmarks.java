@@ -0,0 +1,27 @@
+package kittymaker;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Kitty Benchmarks
+ * Runs the JMH suite. Takes the usual JMH command line options, but unless told otherwise writes the
+ * results as JSON to jmh-result.json so runs from different commits can be compared.
+ * Usage: java -jar benchmarks/target/benchmarks.jar [jmh options] [benchmark regex]
+ */
+public class KittyBenchmarks {
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		OptionsBuilder options = new OptionsBuilder();
+		options.parent(cmd);
+		if (!cmd.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cmd.getResult().hasValue()) {
+			options.result("jmh-result.json");
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,109 @@
+package kittymaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javafx.geometry.Bounds;
+import javafx.scene.Group;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Ellipse;
+import javafx.scene.shape.Line;
+import javafx.scene.shape.Polygon;
+
+/**
+ * Kitty Construction Benchmark
+ * Cost of building one kitty node per scale, the shared template Kitty against the original shape by
+ * shape construction (13 nodes and all of the coordinate maths per kitty). SVGPath only parses its
+ * content when its geometry is first asked for, so both variants return the node's bounds in parent,
+ * which counts building the geometry, as the first layout of a new kitty would. Node construction does
+ * not need the JavaFX toolkit so this runs headless as is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KittyConstructionBenchmark {
+	@Param({"1x1", "1x2", "2x1", "2x2", "0.5x0.5"})
+	public String scale;
+	private double scaleX;
+	private double scaleY;
+	private Color mainColor = Color.ORANGE;
+	private Color eyeColor = Color.GREEN;
+
+	@Setup
+	public void setup() {
+		String[] parts = scale.split("x");
+		scaleX = Double.parseDouble(parts[0]);
+		scaleY = Double.parseDouble(parts[1]);
+	}
+
+	@Benchmark
+	public Bounds template() {
+		return new Kitty(mainColor, eyeColor, 600, 600, scaleX, scaleY).getBoundsInParent();
+	}
+
+	@Benchmark
+	public Bounds perShape() {
+		return perShapeKitty(mainColor, eyeColor, 600, 600, scaleX, scaleY).getBoundsInParent();
+	}
+
+	/**
+	 * The kitty as it used to be built, one shape per body part
+	 */
+	private static Group perShapeKitty(Color mainColor, Color eyeColor, double centerX, double centerY, double scaleX, double scaleY) {
+		double radiusX = 90 * scaleX;
+		double radiusY = 40 * scaleY;
+		double[] range = new double[] {centerX-radiusX, centerX+radiusX, centerY-radiusY, centerY+radiusY};
+
+		Ellipse body = new Ellipse(centerX, centerY, radiusX, radiusY);
+		Ellipse paw1 = new Ellipse(range[0] + radiusX/4, range[3] - radiusY/4, scaleX*15, scaleY*10);
+		Ellipse paw3 = new Ellipse(range[1] - radiusX, range[3] - radiusY/10, scaleX*15, scaleY*10);
+		Ellipse tail = new Ellipse(range[1] - radiusX/8, range[2], scaleX*12, scaleY*52);
+		Ellipse head = new Ellipse(range[0] + radiusX/3, range[2] + radiusY/2, scaleX*40, scaleY*30);
+		Ellipse paw2 = new Ellipse(range[0] + radiusX/1.75, range[3] - radiusY/8, scaleX*15, scaleY*10);
+		Ellipse paw4 = new Ellipse(range[1] - radiusX/3, range[3] - radiusY/6, scaleX*15, scaleY*10);
+		Ellipse eyeLeft = new Ellipse(range[0] + radiusX/8, range[2] + radiusY/2, scaleX*15, scaleY*10);
+		Ellipse eyeRight = new Ellipse(range[0] + radiusX/2, range[2] + radiusY/2, scaleX*15, scaleY*10);
+		Line innerEyeLeft = new Line(range[0] + radiusX/8, range[2] + radiusY/3.5, range[0] + radiusX/8, range[2] + radiusY/1.5);
+		Line innerEyeRight = new Line(range[0] + radiusX/2, range[2] + radiusY/3.5, range[0] + radiusX/2, range[2] + radiusY/1.5);
+		Polygon earLeft = new Polygon();
+		Polygon earRight = new Polygon();
+		innerEyeRight.setStrokeWidth(scaleX*4);
+		innerEyeLeft.setStrokeWidth(scaleX*4);
+		earLeft.getPoints().addAll(new Double[] {
+				centerX-(105*scaleX), centerY-(58*scaleY),
+				centerX-(75*scaleX), centerY-(48*scaleY),
+				centerX-(95*scaleX), centerY-(28*scaleY)
+		});
+		earRight.getPoints().addAll(new Double[] {
+				centerX-(15*scaleX), centerY-(58*scaleY),
+				centerX-(45*scaleX), centerY-(48*scaleY),
+				centerX-(20*scaleX), centerY-(28*scaleY)
+		});
+		paw1.setFill(mainColor);
+		paw3.setFill(mainColor);
+		tail.setFill(mainColor);
+		body.setFill(mainColor);
+		head.setFill(mainColor);
+		paw2.setFill(mainColor);
+		paw4.setFill(mainColor);
+		earLeft.setFill(mainColor);
+		earRight.setFill(mainColor);
+		eyeLeft.setFill(eyeColor);
+		eyeRight.setFill(eyeColor);
+		return new Group(paw1, paw3, tail, body, head, paw2, paw4, earLeft, earRight, eyeLeft, eyeRight, innerEyeLeft, innerEyeRight);
+	}
+}
@@ -0,0 +1,83 @@
+package kittymaker;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Replay Benchmark
+ * Time to replay a recorded session into a fresh scene, headless and at full speed. Pass -p log=FILE to
+ * replay a log saved with --record, otherwise a built in session is used: kitties created one at a time,
+ * background toggles and a few bulk spawns. The scene is seeded from the log so every run builds the same
+ * scene.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReplayBenchmark {
+	private static final String[][] KINDS = {
+			{"tall", "thicc"}, {"tall", "hungry"}, {"smol", "thicc"}, {"smol", "hungry"},
+	};
+	private static final String[] TOGGLES = {"pyramidCheckBox", "moonCheckBox", "nightCheckBox"};
+	@Param({""})
+	public String log;
+	private KittyEventLog events;
+	private SceneFixture fixture;
+
+	@Setup(Level.Trial)
+	public void load() throws IOException {
+		events = log.isEmpty() ? session() : KittyEventLog.read(Paths.get(log));
+	}
+
+	@Setup(Level.Iteration)
+	public void setup() throws InterruptedException {
+		fixture = SceneFixture.start(Map.of(
+				"renderer", "canvas",
+				"spacing", "0",
+				"limit", "1000000",
+				"seed", String.valueOf(events.getSeed())));
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public int replay() {
+		return FxPlatform.call(() -> fixture.app().replay(events)).join();
+	}
+
+	private static KittyEventLog session() {
+		KittyEventLog session = new KittyEventLog(1);
+		for (int i = 0; i < 200; i++) {
+			String[] kind = KINDS[i % KINDS.length];
+			session.add(0, kind[0], "");
+			session.add(0, kind[1], "");
+			session.add(0, "createBtn", "");
+			session.add(0, TOGGLES[i % TOGGLES.length], "");
+			if (i % 50 == 49) {
+				session.add(0, "spawnBtn", "20000");
+			}
+		}
+		return session;
+	}
+}
@@ -0,0 +1,119 @@
+package kittymaker;
+
+import java.util.Map;
+
+import javafx.scene.Parent;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.ListView;
+import javafx.scene.control.RadioButton;
+import javafx.stage.Stage;
+
+/**
+ * SceneFixture
+ * A running Kitty Maker with a given number of kitties, driven through its own controls the way a user
+ * would, so the benchmarks go through the real event handlers.
+ * Everything apart from start() must be called on the JavaFX application thread.
+ */
+final class SceneFixture {
+	private final GeometricScene app;
+	private final Stage stage;
+	private final Parent root;
+	private final RadioButton tall;
+	private final RadioButton thicc;
+	private final Button createBtn;
+	private final ListView<?> currentKitties;
+
+	private SceneFixture(GeometricScene app, Stage stage) {
+		this.app = app;
+		this.stage = stage;
+		root = stage.getScene().getRoot();
+		tall = (RadioButton) root.lookup("#tall");
+		thicc = (RadioButton) root.lookup("#thicc");
+		createBtn = (Button) root.lookup("#createBtn");
+		currentKitties = (ListView<?>) root.lookup("#currentKitties");
+	}
+
+	/**
+	 * Start Kitty Maker in canvas mode with overlapping placement and spawn the kitties
+	 * @param kitties int - kitties to spawn
+	 * @return SceneFixture
+	 */
+	static SceneFixture start(int kitties) throws InterruptedException {
+		SceneFixture fixture = start(Map.of(
+				"renderer", "canvas",
+				"spacing", "0",
+				"limit", String.valueOf(kitties + 1)));
+		FxPlatform.run(() -> {
+			fixture.spawn(kitties);
+			fixture.layout();
+		});
+		return fixture;
+	}
+
+	/**
+	 * Start Kitty Maker with no kitties
+	 * @param params Map - named parameters, as --name=value on the command line
+	 * @return SceneFixture
+	 */
+	static SceneFixture start(Map<String, String> params) throws InterruptedException {
+		FxPlatform.start();
+		return FxPlatform.call(() -> {
+			GeometricScene app = new GeometricScene(params);
+			Stage stage = new Stage();
+			app.start(stage);
+			return new SceneFixture(app, stage);
+		});
+	}
+
+	/**
+	 * Create kitties with the create button
+	 * @param kitties int - kitties to create
+	 */
+	void spawn(int kitties) {
+		for (int i = 0; i < kitties; i++) {
+			tall.fire();
+			thicc.fire();
+			createBtn.fire();
+		}
+	}
+
+	/**
+	 * Delete the kitty in the first row on screen with its delete button
+	 */
+	void deleteFirstRow() {
+		((Button) currentKitties.lookup(".kitty-delete")).fire();
+	}
+
+	/**
+	 * @return CheckBox - visibility control of the first row on screen
+	 */
+	CheckBox firstRowVisibility() {
+		return (CheckBox) currentKitties.lookup(".kitty-visible");
+	}
+
+	GeometricScene app() {
+		return app;
+	}
+
+	Parent lookup(String selector) {
+		return (Parent) root.lookup(selector);
+	}
+
+	ListView<?> currentKitties() {
+		return currentKitties;
+	}
+
+	/**
+	 * Apply the model's changes and run a CSS and layout pass, as the next pulse would
+	 */
+	void layout() {
+		app.applyChanges();
+		root.applyCss();
+		root.layout();
+	}
+
+	void close() {
+		FxPlatform.run(stage::hide);
+	}
+}
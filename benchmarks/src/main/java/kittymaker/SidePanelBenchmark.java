@@ -0,0 +1,62 @@
+package kittymaker;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Side Panel Benchmark
+ * Cost of keeping the current kitties panel up to date with N kitties: rebinding every row on screen
+ * (what a full rebuild costs now that the list is virtualized) and a create followed by a delete,
+ * both including the layout pass that materialises the rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SidePanelBenchmark {
+	@Param({"9", "1000", "100000"})
+	public int kitties;
+	private SceneFixture fixture;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		fixture = SceneFixture.start(kitties);
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public void rebuild() {
+		FxPlatform.run(() -> {
+			fixture.currentKitties().refresh();
+			fixture.layout();
+		});
+	}
+
+	@Benchmark
+	public void createAndDelete() {
+		FxPlatform.run(() -> {
+			fixture.spawn(1);
+			fixture.layout();
+			fixture.deleteFirstRow();
+			fixture.layout();
+		});
+	}
+}
@@ -0,0 +1,138 @@
+package kittymaker;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javafx.application.Application;
+
+/**
+ * Startup Benchmark
+ * Cold starts Kitty Maker over and over, each time in a JVM of its own, and reports the time from the JVM starting
+ * to the first frame and to interactive (the first frame with every control built), as printed by --report-startup.
+ * JMH is no use for this, its JVM is already up and warm before a benchmark method runs.
+ *
+ * Usage: StartupBenchmark [--runs=N] [--cds=FILE] [--headless] [-- app parameters]
+ * Both the eager start and --fast-start are timed, --runs times each (default 10), after one untimed start of each
+ * that also leaves the fast start's scenery cached in target/startup-cache. With --cds=FILE every start uses that
+ * class data sharing archive, made first by a fast start recording the classes it loads if the file does not exist.
+ * --headless starts on the Monocle platform in software, for machines with no display.
+ */
+public class StartupBenchmark {
+	private static final String LAUNCH = "--launch";
+	private static final Pattern REPORT = Pattern.compile("Startup: first frame (\\d+) ms, interactive (\\d+) ms");
+	private static final long TIMEOUT_SECONDS = 120;
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if (args.length > 0 && args[0].equals(LAUNCH)) {
+			// the java launcher refuses an Application subclass as the main class when JavaFX is on the class path
+			Application.launch(GeometricScene.class, Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		int runs = 10;
+		Path archive = null;
+		boolean headless = false;
+		List<String> appArgs = new ArrayList<String>();
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--")) {
+				appArgs.addAll(Arrays.asList(args).subList(i + 1, args.length));
+				break;
+			} else if (args[i].startsWith("--runs=")) {
+				runs = Math.max(1, Integer.parseInt(args[i].substring(7)));
+			} else if (args[i].startsWith("--cds=")) {
+				archive = Paths.get(args[i].substring(6)).toAbsolutePath();
+			} else if (args[i].equals("--headless")) {
+				headless = true;
+			}
+		}
+		if (appArgs.stream().noneMatch(arg -> arg.startsWith("--startup-cache"))) {
+			appArgs.add("--startup-cache=" + Paths.get("target", "startup-cache").toAbsolutePath());
+		}
+		List<String> jvm = new ArrayList<String>();
+		jvm.add(ProcessHandle.current().info().command().orElse("java"));
+		if (headless) {
+			jvm.add("-Dglass.platform=Monocle");
+			jvm.add("-Dmonocle.platform=Headless");
+			jvm.add("-Dprism.order=sw");
+		}
+		if (archive != null) {
+			if (!Files.exists(archive)) {
+				List<String> training = new ArrayList<String>(jvm);
+				training.add("-XX:ArchiveClassesAtExit=" + archive);
+				start(training, appArgs, true);
+				System.out.println("Class data sharing archive written to " + archive);
+			}
+			jvm.add("-XX:SharedArchiveFile=" + archive);
+		}
+		for (boolean fast : new boolean[] {false, true}) {
+			start(jvm, appArgs, fast);
+			long[] firstFrame = new long[runs];
+			long[] interactive = new long[runs];
+			for (int r = 0; r < runs; r++) {
+				long[] times = start(jvm, appArgs, fast);
+				firstFrame[r] = times[0];
+				interactive[r] = times[1];
+			}
+			System.out.println(String.format(Locale.ROOT, "%-6s first frame %s, interactive %s",
+					fast ? "fast" : "eager", summary(firstFrame), summary(interactive)));
+		}
+	}
+
+	/**
+	 * Start Kitty Maker in a new JVM and wait for it to report its start up and quit
+	 * @param jvm List - java command and JVM options
+	 * @param appArgs List - application parameters
+	 * @param fast boolean - true for --fast-start
+	 * @return long[] - milliseconds to the first frame and to interactive
+	 */
+	private static long[] start(List<String> jvm, List<String> appArgs, boolean fast) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>(jvm);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(StartupBenchmark.class.getName());
+		command.add(LAUNCH);
+		command.add("--report-startup=exit");
+		if (fast) {
+			command.add("--fast-start");
+		}
+		command.addAll(appArgs);
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		// a start that hangs is killed, which ends its output
+		CompletableFuture.delayedExecutor(TIMEOUT_SECONDS, TimeUnit.SECONDS).execute(process::destroyForcibly);
+		long[] times = null;
+		try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+			String line;
+			while ((line = out.readLine()) != null) {
+				Matcher report = REPORT.matcher(line);
+				if (report.find()) {
+					times = new long[] {Long.parseLong(report.group(1)), Long.parseLong(report.group(2))};
+				} else {
+					System.err.println(line);
+				}
+			}
+		}
+		process.waitFor();
+		if (times == null) {
+			throw new IllegalStateException("Kitty Maker did not report its start up, exit code " + process.exitValue());
+		}
+		return times;
+	}
+
+	private static String summary(long[] millis) {
+		long[] sorted = millis.clone();
+		Arrays.sort(sorted);
+		return String.format(Locale.ROOT, "median %d ms (min %d, max %d)", sorted[sorted.length / 2], sorted[0],
+				sorted[sorted.length - 1]);
+	}
+}
@@ -0,0 +1,119 @@
+package kittymaker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javafx.scene.Node;
+import javafx.scene.Parent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Style Benchmark
+ * Cost of the CSS pass with N kitties: restyling the whole window from scratch, which is what any change to the
+ * root's style classes costs, and switching theme including the layout pass after it. Styling newly made side panel
+ * rows is part of SidePanelBenchmark.rebuild.
+ * With -p styling=inline the stylesheet is taken off and every node gets back the inline style it had before
+ * kitty-maker.css, as the baseline for cssPass. Inline styles have no theme, so themeSwitch then only toggles a
+ * style class nothing matches, which costs the same restyle and layout a theme switch would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StyleBenchmark {
+	// a style class nothing in the stylesheet matches, toggling it makes every node look its styles up again
+	private static final String RESTYLE = "restyle";
+	// the inline styles the stylesheet replaced, by the style class that took each one over
+	private static final Map<String, String> INLINE = new LinkedHashMap<String, String>();
+	static {
+		INLINE.put("root", "-fx-background-color:#ffffff;");
+		INLINE.put("kitty-option", "-fx-color:#d1d0d7; -fx-text-fill:#2c2c2c; -fx-font-weight:bold; -fx-border-width:1px;");
+		INLINE.put("kitty-action", "-fx-background-color:#fc284f; -fx-text-fill:#ffffff; -fx-border-width:1; -fx-border-color:#2c2c2c; -fx-font-weight:bold;");
+		INLINE.put("kitty-label", "-fx-font-size:1.1em; -fx-font-weight:bold;");
+		INLINE.put("kitty-heading", "-fx-font-weight:700; -fx-font-size:1.4em;");
+		INLINE.put("kitty-toolbar", "-fx-background-color:#DCE3E8; -fx-padding:10px; -fx-border-width:0px 4px 4px 4px; -fx-border-style:dotted; -fx-border-color:#ffffff;");
+		INLINE.put("stats-overlay", "-fx-background-color:rgba(44,44,44,0.75); -fx-text-fill:#ffffff; -fx-font-family:monospace; -fx-padding:5px;");
+		INLINE.put("kitty-panel", "-fx-background-color:#F2F5F7; -fx-padding:5px; -fx-border-width:4px 4px 0px 4px; -fx-border-style:dotted; -fx-border-color:#ffffff;");
+		INLINE.put("kitty-list", "-fx-background-color:transparent; -fx-background-insets:0; -fx-padding:0;");
+		INLINE.put("kitty-cell", "-fx-background-color:transparent; -fx-padding:0 0 5 0;");
+		INLINE.put("kitty-row", "-fx-background-color:#ffffff; -fx-padding:5px; -fx-background-radius:4px; -fx-font-weight:bold;");
+		INLINE.put("kitty-visible", "-fx-text-fill:#2c2c2c;");
+		INLINE.put("kitty-delete", "-fx-background-color:#fc284f; -fx-text-fill:#ffffff; -fx-border-width:1; -fx-border-color:#2c2c2c;");
+	}
+	@Param({"1000", "100000"})
+	public int kitties;
+	@Param({"stylesheet", "inline"})
+	public String styling;
+	private SceneFixture fixture;
+	private Parent root;
+
+	@Setup
+	public void setup() throws InterruptedException {
+		fixture = SceneFixture.start(kitties);
+		root = fixture.lookup(".root");
+		if (styling.equals("inline")) {
+			FxPlatform.run(() -> {
+				root.getScene().getStylesheets().clear();
+				inline(root);
+				fixture.layout();
+			});
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		fixture.close();
+	}
+
+	@Benchmark
+	public void cssPass() {
+		FxPlatform.run(() -> {
+			if (!root.getStyleClass().remove(RESTYLE)) {
+				root.getStyleClass().add(RESTYLE);
+			}
+			root.applyCss();
+		});
+	}
+
+	@Benchmark
+	public void themeSwitch() {
+		FxPlatform.run(() -> {
+			fixture.app().setDarkTheme(!fixture.app().isDarkTheme());
+			fixture.layout();
+		});
+	}
+
+	/**
+	 * Give a node and everything under it the inline style of its style class
+	 * @param node Node - top of the tree
+	 */
+	private static void inline(Node node) {
+		for (String styleClass : node.getStyleClass()) {
+			String style = INLINE.get(styleClass);
+			if (style != null) {
+				node.setStyle(style);
+				break;
+			}
+		}
+		if (node instanceof Parent) {
+			for (Node child : ((Parent) node).getChildrenUnmodifiable()) {
+				inline(child);
+			}
+		}
+	}
+}